@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import android.animation.TimeInterpolator
+import kotlin.math.abs
+
+/**
+ * IndicatorMotion
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 16:20:33
+ * Major Function：<b>How the indicator moves from one tab to the next while swiping</b>
+ *
+ * A motion is three curves of the swipe offset: how far the start edge and the end edge have
+ * moved towards the next tab, and the scale of the indicator width, where 0 shrinks it to a
+ * dot as wide as the indicator is high. The curves are sampled into float tables once, when
+ * the motion is created, so a swipe frame only looks up the tables.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+class IndicatorMotion private constructor(
+    startCurve: TimeInterpolator,
+    endCurve: TimeInterpolator,
+    scaleCurve: TimeInterpolator?
+) {
+    private val startTable = sample(startCurve)
+    private val endTable = sample(endCurve)
+    private val scaleTable = if (scaleCurve != null) sample(scaleCurve) else null
+
+    /**
+     * Return how far the start edge has moved towards the next tab at the swipe offset.
+     */
+    fun getStartFraction(offset: Float): Float {
+        return lookup(startTable, offset)
+    }
+
+    /**
+     * Return how far the end edge has moved towards the next tab at the swipe offset.
+     */
+    fun getEndFraction(offset: Float): Float {
+        return lookup(endTable, offset)
+    }
+
+    /**
+     * Return whether the indicator width is scaled, see [getWidthScale].
+     */
+    fun hasWidthScale(): Boolean {
+        return scaleTable != null
+    }
+
+    /**
+     * Return the scale of the indicator width at the swipe offset, 1 keeps the width.
+     */
+    fun getWidthScale(offset: Float): Float {
+        val scaleTable = scaleTable ?: return 1f
+        return lookup(scaleTable, offset)
+    }
+
+    private fun lookup(table: FloatArray, offset: Float): Float {
+        val position = offset.coerceIn(0f, 1f) * (TABLE_SIZE - 1)
+        val index = position.toInt()
+        if (index >= TABLE_SIZE - 1) {
+            return table[TABLE_SIZE - 1]
+        }
+        val fraction = position - index
+        return table[index] + (table[index + 1] - table[index]) * fraction
+    }
+
+    companion object {
+        private const val TABLE_SIZE = 129
+
+        /**
+         * Both edges move with the swipe offset.
+         */
+        @JvmField
+        val LINEAR = IndicatorMotion({ it }, { it }, null)
+
+        /**
+         * The leading edge moves first and the trailing edge catches up, as stl_tabIndicatorCreep.
+         * The curves are those of AccelerateInterpolator and DecelerateInterpolator.
+         */
+        @JvmField
+        val CREEP = IndicatorMotion({ it * it }, { 1 - (1 - it) * (1 - it) }, null)
+
+        /**
+         * The end edge stretches to the next tab in the first half of the swipe, the start edge
+         * follows in the second half.
+         */
+        @JvmField
+        val WORM = IndicatorMotion(
+            { (it * 2 - 1).coerceIn(0f, 1f) },
+            { (it * 2).coerceIn(0f, 1f) },
+            null
+        )
+
+        /**
+         * The indicator shrinks to a dot on the way and expands again on the next tab.
+         */
+        @JvmField
+        val DOT_EXPAND = IndicatorMotion(
+            { it },
+            { it },
+            { abs(1 - 2 * it) }
+        )
+
+        /**
+         * Create a motion from custom curves, sampled once here.
+         *
+         * @param startCurve How far the start edge has moved towards the next tab.
+         * @param endCurve   How far the end edge has moved towards the next tab.
+         * @param scaleCurve The scale of the indicator width, or null to keep it.
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun create(
+            startCurve: TimeInterpolator,
+            endCurve: TimeInterpolator,
+            scaleCurve: TimeInterpolator? = null
+        ): IndicatorMotion {
+            return IndicatorMotion(startCurve, endCurve, scaleCurve)
+        }
+
+        private fun sample(curve: TimeInterpolator): FloatArray {
+            return FloatArray(TABLE_SIZE) { curve.getInterpolation(it.toFloat() / (TABLE_SIZE - 1)) }
+        }
+    }
+}
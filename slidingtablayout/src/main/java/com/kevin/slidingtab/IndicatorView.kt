@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import android.content.Context
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.RectF
+import android.graphics.Shader
+import android.graphics.drawable.Drawable
+import android.view.View
+import androidx.annotation.ColorInt
+import kotlin.math.ceil
+import kotlin.math.max
+
+/**
+ * IndicatorView
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 11:05:21
+ * Major Function：<b>The indicator of a [SlidingTabStrip] as its own render layer</b>
+ *
+ * The selected tab background (pill) uses the same class as a second layer below it.
+ *
+ * The indicator is drawn at the origin of this view and moved through the translationX and
+ * translationY properties, so a swipe only updates render properties. Its display list is
+ * re-recorded only when the size, the color or the drawable actually change, and the strip
+ * above it is never invalidated by the indicator.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+internal class IndicatorView(context: Context) : View(context) {
+    private val paint = Paint()
+    private val rectF = RectF()
+    private var drawable: Drawable? = null
+    private var cornerRadius = 0f
+    private var indicatorWidth = 0f
+    private var indicatorHeight = 0f
+    private var gradientOffset = 0f
+
+    init {
+        isClickable = false
+        isFocusable = false
+    }
+
+    fun setDrawable(drawable: Drawable?) {
+        this.drawable = drawable
+        invalidate()
+    }
+
+    fun setCornerRadius(cornerRadius: Float) {
+        if (this.cornerRadius != cornerRadius) {
+            this.cornerRadius = cornerRadius
+            invalidate()
+        }
+    }
+
+    /**
+     * Move the indicator to the specified bounds, in the coordinates of the tab strip.
+     */
+    fun update(left: Float, top: Float, right: Float, bottom: Float, @ColorInt color: Int) {
+        translationX = left
+        translationY = top
+        val width = right - left
+        val height = bottom - top
+        if (width != indicatorWidth || height != indicatorHeight) {
+            invalidateIndicator(max(width, indicatorWidth), max(height, indicatorHeight))
+            indicatorWidth = width
+            indicatorHeight = height
+        }
+        if (drawable == null && paint.color != color) {
+            paint.color = color
+            invalidateIndicator(indicatorWidth, indicatorHeight)
+        }
+    }
+
+    /**
+     * Fill the indicator with a horizontal gradient instead of the color, or stop when shader
+     * is null. The shader spans x from 0 to 1, it is stretched to the indicator width and
+     * slid across it by the offset when drawing, so the indicator shows the start color at
+     * offset 0 and the end color at offset 1. The local matrix of the shader is never changed,
+     * so the native shader is kept across frames. Call after [update].
+     *
+     * @param shader The cached gradient, or null.
+     * @param offset The swipe offset.
+     */
+    fun updateGradient(shader: Shader?, offset: Float) {
+        if (paint.shader !== shader) {
+            paint.shader = shader
+            invalidateIndicator(indicatorWidth, indicatorHeight)
+        }
+        if (shader != null && gradientOffset != offset) {
+            gradientOffset = offset
+            invalidateIndicator(indicatorWidth, indicatorHeight)
+        }
+    }
+
+    /**
+     * Invalidate only the band the indicator covers, not the whole width of the strip.
+     */
+    @Suppress("DEPRECATION")
+    private fun invalidateIndicator(width: Float, height: Float) {
+        invalidate(0, 0, ceil(width).toInt(), ceil(height).toInt())
+    }
+
+    override fun onDraw(canvas: Canvas) {
+        if (indicatorWidth <= 0 || indicatorHeight <= 0) {
+            return
+        }
+        val drawable = drawable
+        if (drawable != null) {
+            drawable.setBounds(0, 0, indicatorWidth.toInt(), indicatorHeight.toInt())
+            drawable.draw(canvas)
+        } else if (paint.shader != null) {
+            // Draw in the space of the shader, x from 0 to 1 spans the indicator width.
+            val saveCount = canvas.save()
+            canvas.translate(indicatorWidth * (1 - 2 * gradientOffset), 0f)
+            canvas.scale(indicatorWidth, 1f)
+            rectF.set(2 * gradientOffset - 1, 0f, 2 * gradientOffset, indicatorHeight)
+            canvas.drawRoundRect(rectF, cornerRadius / indicatorWidth, cornerRadius, paint)
+            canvas.restoreToCount(saveCount)
+        } else {
+            rectF.set(0f, 0f, indicatorWidth, indicatorHeight)
+            canvas.drawRoundRect(rectF, cornerRadius, cornerRadius, paint)
+        }
+    }
+}
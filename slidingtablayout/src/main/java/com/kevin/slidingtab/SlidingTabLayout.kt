@@ -20,6 +20,10 @@ import android.database.DataSetObserver
 import android.graphics.Color
 import android.graphics.Typeface
 import android.graphics.drawable.Drawable
+import android.os.Handler
+import android.os.Looper
+import android.text.StaticLayout
+import android.text.TextUtils
 import android.util.AttributeSet
 import android.util.TypedValue
 import android.view.Gravity
@@ -28,17 +32,22 @@ import android.view.View
 import android.view.ViewGroup
 import android.widget.HorizontalScrollView
 import android.widget.ImageView
-import android.widget.LinearLayout
 import android.widget.TextView
 import androidx.annotation.ColorInt
 import androidx.annotation.IntDef
 import androidx.annotation.Px
+import androidx.core.text.PrecomputedTextCompat
+import androidx.core.widget.TextViewCompat
 import androidx.fragment.app.FragmentManager
 import androidx.fragment.app.FragmentPagerAdapter
 import androidx.viewpager.widget.PagerAdapter
 import androidx.viewpager.widget.ViewPager
 import androidx.viewpager.widget.ViewPager.OnAdapterChangeListener
 import androidx.viewpager.widget.ViewPager.OnPageChangeListener
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import kotlin.math.max
+import kotlin.math.min
 
 /**
  * SlidingTabLayout
@@ -58,8 +67,35 @@ open class SlidingTabLayout @JvmOverloads constructor(
     @IntDef(MODE_SCROLLABLE, MODE_FIXED)
     annotation class TabMode
 
+    @IntDef(RENDER_MODE_VIEW, RENDER_MODE_CANVAS)
+    annotation class RenderMode
+
+    @IntDef(TEXT_SCALE_MODE_SIZE, TEXT_SCALE_MODE_TRANSFORM)
+    annotation class TextScaleMode
+
+    @IntDef(TEXT_TRANSITION_BLEND, TEXT_TRANSITION_FILL, TEXT_TRANSITION_DISCRETE)
+    annotation class TextTransition
+
     @TabMode
     private var mode: Int
+
+    @RenderMode
+    private var renderMode: Int
+    private var tabVirtualized: Boolean
+    private var boundTitles: ArrayList<CharSequence?>? = null
+    private var boundIcons: ArrayList<Drawable?>? = null
+    // Bumped by every setting applied when a tab view is bound, the bound tabs are only
+    // updated in place while it matches.
+    private var tabConfigGeneration = 0
+    private var boundConfigGeneration = 0
+    private var selectedTabScrollPending = false
+    private var tabViewPool = TabViewPool()
+    private var inflateExecutor: Executor? = null
+    private var precomputeTitles = false
+
+    // Changes with every population, an asynchronous inflation of an older one is dropped.
+    @Volatile
+    private var inflateGeneration = 0
     private val leftPadding: Float
     private val rightPadding: Float
     private val tabLayoutRes: Int
@@ -77,6 +113,7 @@ open class SlidingTabLayout @JvmOverloads constructor(
     private var viewPager: ViewPager? = null
     private var pagerAdapter: PagerAdapter? = null
     private val slidingTabStrip: SlidingTabStrip
+    private val tabContainer: TabStripContainer
 
     private var pageChangeListener: TabLayoutOnPageChangeListener? = null
     private var adapterChangeListener: AdapterChangeListener? = null
@@ -93,10 +130,15 @@ open class SlidingTabLayout @JvmOverloads constructor(
         slidingTabStrip = SlidingTabStrip(context)
         val a = context.obtainStyledAttributes(attrs, R.styleable.SlidingTabLayout)
         mode = a.getInt(R.styleable.SlidingTabLayout_stl_tabMode, MODE_FIXED)
+        renderMode = a.getInt(R.styleable.SlidingTabLayout_stl_tabRenderMode, RENDER_MODE_VIEW)
+        tabVirtualized = a.getBoolean(R.styleable.SlidingTabLayout_stl_tabVirtualized, false)
+        setTabAsyncInflation(a.getBoolean(R.styleable.SlidingTabLayout_stl_tabAsyncInflate, false))
+        precomputeTitles = a.getBoolean(R.styleable.SlidingTabLayout_stl_tabPrecomputeText, false)
         leftPadding = a.getDimension(R.styleable.SlidingTabLayout_stl_leftPadding, 0f)
         rightPadding = a.getDimension(R.styleable.SlidingTabLayout_stl_rightPadding, 0f)
         smoothScroll = a.getBoolean(R.styleable.SlidingTabLayout_stl_smoothScroll, true)
         tabLayoutRes = a.getResourceId(R.styleable.SlidingTabLayout_stl_tabLayout, 0)
+        slidingTabStrip.setTabViewPool(tabViewPool, tabLayoutRes)
         tabPaddingBottom = a.getDimensionPixelSize(R.styleable.SlidingTabLayout_stl_tabPadding, 0)
         tabPaddingEnd = tabPaddingBottom
         tabPaddingTop = tabPaddingEnd
@@ -118,14 +160,34 @@ open class SlidingTabLayout @JvmOverloads constructor(
         selectedTabTextColor =
             a.getColor(R.styleable.SlidingTabLayout_stl_tabSelectedTextColor, Color.DKGRAY)
         isTabTextBold = a.getBoolean(R.styleable.SlidingTabLayout_stl_tabTextBold, false)
-        slidingTabStrip.gravity =
+        slidingTabStrip.setTabGravity(
             a.getInt(R.styleable.SlidingTabLayout_stl_tabGravity, Gravity.CENTER_VERTICAL)
+        )
+        slidingTabStrip.setTabMode(mode)
+        slidingTabStrip.setRenderMode(renderMode)
+        slidingTabStrip.setTextScaleMode(
+            a.getInt(R.styleable.SlidingTabLayout_stl_tabTextScaleMode, TEXT_SCALE_MODE_SIZE)
+        )
+        setTabTextTransition(
+            a.getInt(R.styleable.SlidingTabLayout_stl_tabTextTransition, TEXT_TRANSITION_BLEND)
+        )
+        slidingTabStrip.setScrollLayersEnabled(
+            a.getBoolean(R.styleable.SlidingTabLayout_stl_tabScrollLayers, false)
+        )
+        slidingTabStrip.setTabPadding(tabPaddingStart, tabPaddingTop, tabPaddingEnd, tabPaddingBottom)
         slidingTabStrip.setLeftPadding(leftPadding)
         slidingTabStrip.setRightPadding(rightPadding)
         slidingTabStrip.setTabText(tabTextSize, tabTextColor)
         slidingTabStrip.setTabSelectedText(tabSelectedTextSize, selectedTabTextColor)
-        slidingTabStrip.setIndicatorCreep(
-            a.getBoolean(R.styleable.SlidingTabLayout_stl_tabIndicatorCreep, false)
+        val indicatorCreep = a.getBoolean(R.styleable.SlidingTabLayout_stl_tabIndicatorCreep, false)
+        setIndicatorMotion(
+            when (a.getInt(R.styleable.SlidingTabLayout_stl_tabIndicatorMotion, -1)) {
+                INDICATOR_MOTION_LINEAR -> IndicatorMotion.LINEAR
+                INDICATOR_MOTION_CREEP -> IndicatorMotion.CREEP
+                INDICATOR_MOTION_WORM -> IndicatorMotion.WORM
+                INDICATOR_MOTION_DOT_EXPAND -> IndicatorMotion.DOT_EXPAND
+                else -> if (indicatorCreep) IndicatorMotion.CREEP else IndicatorMotion.LINEAR
+            }
         )
         slidingTabStrip.setIndicatorHeight(
             a.getDimension(R.styleable.SlidingTabLayout_stl_tabIndicatorHeight, 0f)
@@ -136,6 +198,9 @@ open class SlidingTabLayout @JvmOverloads constructor(
         slidingTabStrip.setIndicatorWidthRatio(
             a.getFloat(R.styleable.SlidingTabLayout_stl_tabIndicatorWidthRatio, 1.0f)
         )
+        slidingTabStrip.setIndicatorGradient(
+            a.getBoolean(R.styleable.SlidingTabLayout_stl_tabIndicatorGradient, false)
+        )
         slidingTabStrip.setIndicatorColor(
             a.getColor(R.styleable.SlidingTabLayout_stl_tabIndicatorColor, Color.TRANSPARENT)
         )
@@ -168,12 +233,32 @@ open class SlidingTabLayout @JvmOverloads constructor(
                 getAlphaColor(Color.BLACK, 32.toByte())
             )
         )
+        slidingTabStrip.setIconSize(
+            a.getDimensionPixelSize(R.styleable.SlidingTabLayout_stl_tabIconSize, 0)
+        )
+        slidingTabStrip.setIconPadding(
+            a.getDimension(R.styleable.SlidingTabLayout_stl_tabIconPadding, 0f)
+        )
+        slidingTabStrip.setIconTint(
+            a.getBoolean(R.styleable.SlidingTabLayout_stl_tabIconTint, false)
+        )
+        slidingTabStrip.setPillColor(a.getColor(R.styleable.SlidingTabLayout_stl_tabPillColor, 0))
+        slidingTabStrip.setPillCornerRadius(
+            a.getDimension(R.styleable.SlidingTabLayout_stl_tabPillCornerRadius, -1f)
+        )
+        slidingTabStrip.setPillMargins(
+            a.getDimension(R.styleable.SlidingTabLayout_stl_tabPillMarginHorizontal, 0f),
+            a.getDimension(R.styleable.SlidingTabLayout_stl_tabPillMarginVertical, 0f)
+        )
         slidingTabStrip.setShowTabTextScaleAnim(
             a.getBoolean(R.styleable.SlidingTabLayout_stl_tabTextShowScaleAnim, true)
         )
         a.recycle()
+        // The indicator is a separate layer below the tab strip, so moving it never
+        // re-records the strip. The selected tab background is another one below it.
+        tabContainer = TabStripContainer(context, slidingTabStrip)
         this.addView(
-            slidingTabStrip,
+            tabContainer,
             ViewGroup.LayoutParams.MATCH_PARENT,
             ViewGroup.LayoutParams.MATCH_PARENT
         )
@@ -221,6 +306,7 @@ open class SlidingTabLayout @JvmOverloads constructor(
     fun setTabMode(@TabMode mode: Int) {
         if (this.mode != mode) {
             this.mode = mode
+            slidingTabStrip.setTabMode(mode)
             setupWithViewPager(viewPager)
         }
     }
@@ -230,12 +316,215 @@ open class SlidingTabLayout @JvmOverloads constructor(
         return mode
     }
 
+    /**
+     * Set how the tabs are rendered. [RENDER_MODE_CANVAS] draws all titles in the tab strip
+     * itself without creating a view per tab, [getTabLayoutRes] is ignored in this mode and the
+     * tab icons are drawn from one atlas bitmap before the titles.
+     *
+     * @param renderMode [RENDER_MODE_VIEW] or [RENDER_MODE_CANVAS]
+     */
+    fun setTabRenderMode(@RenderMode renderMode: Int) {
+        if (this.renderMode != renderMode) {
+            this.renderMode = renderMode
+            slidingTabStrip.reset()
+            slidingTabStrip.setRenderMode(renderMode)
+            setupWithViewPager(viewPager)
+        }
+    }
+
+    @RenderMode
+    fun getTabRenderMode(): Int {
+        return renderMode
+    }
+
+    /**
+     * Create views only for the tabs near the visible range and recycle the views of the tabs
+     * scrolled away, for pagers with thousands of pages. The tab widths are measured once, so
+     * the indicator and the scrolling do not depend on the views. Applies to [MODE_SCROLLABLE]
+     * with [RENDER_MODE_VIEW].
+     *
+     * @param virtualized true to virtualize the tabs, false to create a view for every tab.
+     */
+    fun setTabVirtualized(virtualized: Boolean) {
+        if (tabVirtualized != virtualized) {
+            tabVirtualized = virtualized
+            setupWithViewPager(viewPager)
+        }
+    }
+
+    fun isTabVirtualized(): Boolean {
+        return tabVirtualized
+    }
+
+    /**
+     * Set the pool the tab views are put into when the tabs are populated again, and taken
+     * from before a tab view is inflated. Share one pool between the tab layouts of a screen
+     * to reuse the views across them.
+     *
+     * @param pool The pool, each tab layout has its own by default.
+     */
+    fun setTabViewPool(pool: TabViewPool) {
+        tabViewPool = pool
+        slidingTabStrip.setTabViewPool(pool, tabLayoutRes)
+    }
+
+    fun getTabViewPool(): TabViewPool {
+        return tabViewPool
+    }
+
+    /**
+     * Inflate the tab views of [getTabLayoutRes] on a shared background thread when the tabs
+     * are populated from scratch, see [setTabInflateExecutor].
+     *
+     * @param async true to inflate the tab views in the background, false otherwise.
+     */
+    fun setTabAsyncInflation(async: Boolean) {
+        setTabInflateExecutor(if (async) defaultInflateExecutor else null)
+    }
+
+    /**
+     * Set the executor the tab views of [getTabLayoutRes] are inflated on when the tabs are
+     * populated from scratch. The tab layout keeps showing its previous tabs until all views
+     * are inflated, then they are swapped in on the main thread in one batch. Views that can
+     * not be inflated in the background are inflated on the main thread.
+     *
+     * @param executor The executor, or null to inflate on the main thread.
+     */
+    fun setTabInflateExecutor(executor: Executor?) {
+        inflateExecutor = executor
+    }
+
+    /**
+     * Shape and measure the tab titles in the background when the tabs are populated from
+     * scratch, on the executor of [setTabInflateExecutor] or a shared background thread. Tab
+     * views get the titles as precomputed text before they are first measured, canvas-drawn
+     * titles get their layouts. Until then the tab layout keeps showing its previous tabs.
+     *
+     * @param precompute true to precompute the titles, false otherwise.
+     */
+    fun setTabTextPrecompute(precompute: Boolean) {
+        precomputeTitles = precompute
+    }
+
     fun getTabLayoutRes(): Int {
         return tabLayoutRes
     }
 
+    /**
+     * Set how the selected tab reaches [getTabSelectedTextSize]. [TEXT_SCALE_MODE_TRANSFORM]
+     * keeps every tab at [getTabTextSize] and scales the selected text through view properties,
+     * so the selection animation runs without a single layout pass. Takes effect the next time
+     * the tabs are populated.
+     *
+     * @param mode [TEXT_SCALE_MODE_SIZE] or [TEXT_SCALE_MODE_TRANSFORM]
+     */
+    fun setTabTextScaleMode(@TextScaleMode mode: Int) {
+        slidingTabStrip.setTextScaleMode(mode)
+        tabConfigGeneration++
+    }
+
+    /**
+     * Set how the swiped tab texts change color. [TEXT_TRANSITION_FILL] draws each of the two
+     * swiped titles twice, clipped at the drag offset. It needs [RENDER_MODE_CANVAS] or tab
+     * texts that are [TabTextView]s, other tabs keep blending.
+     *
+     * @param transition [TEXT_TRANSITION_BLEND], [TEXT_TRANSITION_FILL] or
+     * [TEXT_TRANSITION_DISCRETE]
+     */
+    fun setTabTextTransition(@TextTransition transition: Int) {
+        slidingTabStrip.setTabTransition(
+            when (transition) {
+                TEXT_TRANSITION_FILL -> TabTransition.FILL
+                TEXT_TRANSITION_DISCRETE -> TabTransition.DISCRETE
+                else -> TabTransition.BLEND
+            }
+        )
+    }
+
+    /**
+     * Set how every tab looks for the current swipe and selection, see [TabTransition] for
+     * the contract of a custom transition.
+     *
+     * @param transition The transition, [TabTransition.BLEND] by default.
+     */
+    fun setTabTransition(transition: TabTransition) {
+        slidingTabStrip.setTabTransition(transition)
+    }
+
+    /**
+     * Draw the visible tab texts into hardware layers while the pager is dragging or settling,
+     * the text colors of a swipe are then applied without redrawing the texts.
+     *
+     * @param enabled true to use hardware layers while scrolling, false otherwise.
+     */
+    fun setTabScrollLayersEnabled(enabled: Boolean) {
+        slidingTabStrip.setScrollLayersEnabled(enabled)
+    }
+
+    /**
+     * Set how the indicator moves from one tab to the next while swiping.
+     *
+     * @param motion A built-in motion of [IndicatorMotion] or one made by
+     * [IndicatorMotion.create].
+     */
+    fun setIndicatorMotion(motion: IndicatorMotion) {
+        slidingTabStrip.setIndicatorMotion(motion)
+    }
+
+    /**
+     * Fill the indicator with a gradient between the selected colors of the swiped tabs.
+     * Applies while no indicator color or drawable is set, see [setSelectedTextColors].
+     *
+     * @param gradient true to draw a gradient, false to blend into one color.
+     */
+    fun setIndicatorGradientEnabled(gradient: Boolean) {
+        slidingTabStrip.setIndicatorGradient(gradient)
+    }
+
+    /**
+     * Tint the tab icons with the text color of their tab, interpolated along the swipe as the
+     * text. The icons of the current tabs are swapped for tintable copies right away.
+     *
+     * @param tint true to tint the icons, false otherwise.
+     */
+    fun setTabIconTint(tint: Boolean) {
+        slidingTabStrip.setIconTint(tint)
+        tabConfigGeneration++
+    }
+
+    /**
+     * Set the color of the background drawn behind the selected tab. It is one shape that
+     * moves with the indicator, tabs need no selector backgrounds for it.
+     *
+     * @param color A color value in the form 0xAARRGGBB, 0 for no background.
+     */
+    fun setTabPillColor(@ColorInt color: Int) {
+        slidingTabStrip.setPillColor(color)
+    }
+
+    /**
+     * Set the corner radius of the selected tab background.
+     *
+     * @param cornerRadius The radius in pixels, negative to round the ends completely.
+     */
+    fun setTabPillCornerRadius(cornerRadius: Float) {
+        slidingTabStrip.setPillCornerRadius(cornerRadius)
+    }
+
+    /**
+     * Set the insets of the selected tab background from the tab bounds.
+     *
+     * @param horizontalMargin The left and right inset in pixels.
+     * @param verticalMargin   The top and bottom inset in pixels.
+     */
+    fun setTabPillMargins(horizontalMargin: Float, verticalMargin: Float) {
+        slidingTabStrip.setPillMargins(horizontalMargin, verticalMargin)
+    }
+
     fun setTabTextBold(mIsTabTextBold: Boolean) {
         this.isTabTextBold = mIsTabTextBold
+        slidingTabStrip.setTabTextBold(mIsTabTextBold)
+        tabConfigGeneration++
     }
 
     private fun setPagerAdapter(adapter: PagerAdapter?) {
@@ -261,56 +550,552 @@ open class SlidingTabLayout @JvmOverloads constructor(
             return
         }
         val adapter = viewPager!!.adapter ?: return
+        populateTabs(PagerTabSource(adapter), viewPager!!.currentItem, TabClickListener(this))
+    }
+
+    /**
+     * Populate the tabs from the specified source, as views or as canvas-drawn titles
+     * depending on the render mode. Existing tab views are updated from a diff against the
+     * source instead of being recreated, so the selection keeps its state.
+     *
+     * @param source      The titles and icons of the tabs.
+     * @param currentItem The position of the current page.
+     * @param listener    The callback to be invoked when a tab is clicked.
+     */
+    internal fun populateTabs(source: TabSource, currentItem: Int, listener: OnTabClickListener) {
+        inflateGeneration++
+        val count = source.getCount()
+        if (renderMode == RENDER_MODE_VIEW && !(mode == MODE_SCROLLABLE && tabVirtualized)) {
+            val titles = List(count) { source.getTitle(it) }
+            val icons = if (source.hasIcons()) List(count) { source.getIcon(it) } else null
+            if (updateTabViews(source, titles, icons)) {
+                slidingTabStrip.setOnTabClickListener(listener)
+                boundTitles = ArrayList(titles)
+                boundIcons = icons?.let { ArrayList(it) }
+                selectPopulatedTab(count, currentItem)
+                return
+            }
+            val inflating = inflateExecutor != null && tabLayoutRes != 0
+                    && count > tabViewPool.getRecycledViewCount(tabLayoutRes)
+            if (inflating || (precomputeTitles && count > 0)) {
+                populateTabViewsAsync(source, currentItem, listener, inflating)
+                return
+            }
+            setTabViews(source, titles, icons, currentItem, listener, emptyList(), null)
+            return
+        }
+        boundTitles = null
+        boundIcons = null
+        if (renderMode == RENDER_MODE_CANVAS) {
+            val titles = List(count) { source.getTitle(it) }
+            if (precomputeTitles && count > 0) {
+                prepareTitleLayoutsAsync(source, titles, currentItem, listener)
+            } else {
+                setCanvasTitles(source, titles, null, currentItem, listener)
+            }
+            return
+        }
+        slidingTabStrip.reset()
+        slidingTabStrip.setOnTabClickListener(listener)
+        val titles = List(count) { source.getTitle(it) }
+        slidingTabStrip.setVirtualTabs(titles) { recycled, position ->
+            bindTabView(recycled, source, position, count)
+        }
+        selectPopulatedTab(count, currentItem)
+    }
+
+    /**
+     * Replace all tabs with tab views for the source, the inflated views are bound first and
+     * the precomputed titles are applied before the tabs are measured.
+     */
+    private fun setTabViews(
+        source: TabSource,
+        titles: List<CharSequence?>,
+        icons: List<Drawable?>?,
+        currentItem: Int,
+        listener: OnTabClickListener,
+        inflated: List<View>,
+        precomputed: List<PrecomputedTextCompat?>?
+    ) {
+        val count = titles.size
         slidingTabStrip.reset()
-        val listener: TabClickListener = TabClickListener(this)
-        for (i in 0 until adapter.count) {
-            var view: View? = null
-            var textView: TextView? = null
-            var iconView: ImageView? = null
-            if (tabLayoutRes != 0) {
-                view =
-                    LayoutInflater.from(this.context).inflate(tabLayoutRes, slidingTabStrip, false)
-                textView = view.findViewById(R.id.sliding_tab_text)
-                iconView = view.findViewById(R.id.sliding_tab_icon)
-                if (textView != null && textView.typeface != null) {
-                    isTabTextBold = textView.typeface.isBold
-                    slidingTabStrip.setTabTextBold(isTabTextBold)
+        for (i in 0 until count) {
+            val view = if (i < inflated.size) {
+                createTabView(source, i, count, inflated[i])
+            } else {
+                createTabView(source, i, count)
+            }
+            if (precomputed != null && i < precomputed.size) {
+                setPrecomputedTitle(view, precomputed[i])
+            }
+            slidingTabStrip.addTabView(view)
+        }
+        for (i in count until inflated.size) {
+            tabViewPool.putRecycledView(tabLayoutRes, inflated[i])
+        }
+        slidingTabStrip.setOnTabClickListener(listener)
+        boundTitles = ArrayList(titles)
+        boundIcons = icons?.let { ArrayList(it) }
+        boundConfigGeneration = tabConfigGeneration
+        selectPopulatedTab(count, currentItem)
+    }
+
+    /**
+     * Prepare the tab views in the background, the missing views are inflated when inflating
+     * and the titles are precomputed when enabled. All tabs are swapped in on the main thread
+     * at once, until then the previous tabs stay and pages selected meanwhile are kept.
+     */
+    private fun populateTabViewsAsync(
+        source: TabSource,
+        currentItem: Int,
+        listener: OnTabClickListener,
+        inflating: Boolean
+    ) {
+        val executor = inflateExecutor ?: defaultInflateExecutor
+        val generation = inflateGeneration
+        val layoutRes = tabLayoutRes
+        val parent = slidingTabStrip
+        val needed = if (inflating) {
+            source.getCount() - tabViewPool.getRecycledViewCount(layoutRes)
+        } else {
+            0
+        }
+        // The inflater of the main thread is locked while it inflates and its factory touches
+        // caches of the main thread, use a bare one.
+        val inflater = BasicInflater(context)
+        val titles = if (precomputeTitles) List(source.getCount()) { source.getTitle(it) } else null
+        val textSize = tabTextSize
+        val bold = isTabTextBold
+        // Range updates populate again until the new tabs are bound.
+        boundTitles = null
+        boundIcons = null
+        slidingTabStrip.setSelectedPosition(currentItem)
+        executor.execute {
+            val inflated = ArrayList<View>(max(needed, 1))
+            var failure: RuntimeException? = null
+            try {
+                while (inflated.size < needed && generation == inflateGeneration) {
+                    inflated.add(inflater.inflate(layoutRes, parent, false))
+                }
+                if (titles != null && layoutRes != 0 && inflated.isEmpty()) {
+                    inflated.add(inflater.inflate(layoutRes, parent, false))
                 }
-                if (adapter is SlidingTabPageAdapter && iconView != null) {
-                    val drawable = adapter.getDrawable(i)
-                    if (drawable != null) {
-                        iconView.setImageDrawable(drawable)
-                    } else {
-                        iconView.visibility = GONE
-                    }
+            } catch (e: RuntimeException) {
+                // A view that needs a looper is inflated on the main thread with the rest,
+                // any other failure is thrown there.
+                if (!isLooperFailure(e)) {
+                    failure = e
                 }
             }
-            if (textView == null && view is TextView) {
-                textView = view
+            val error = failure
+            var precomputed: List<PrecomputedTextCompat?>? = null
+            // The default tab text is cheap to create, a custom one is inflated above.
+            val templateText = if (titles != null && layoutRes == 0) {
+                TabTextView(context)
+            } else {
+                inflated.firstOrNull()?.let { findTabTextView(it) }
             }
-            if (textView == null) {
-                textView = TextView(context)
+            if (titles != null && templateText != null && generation == inflateGeneration) {
+                precomputed = createPrecomputedTitles(titles, templateText, textSize, bold)
             }
-            if (view == null) {
-                view = textView
+            mainHandler.post {
+                if (error != null) {
+                    throw error
+                }
+                if (generation == inflateGeneration) {
+                    val count = source.getCount()
+                    setTabViews(
+                        source,
+                        List(count) { source.getTitle(it) },
+                        if (source.hasIcons()) List(count) { source.getIcon(it) } else null,
+                        slidingTabStrip.getSelectedPosition(),
+                        listener,
+                        inflated,
+                        precomputed
+                    )
+                } else if (layoutRes != 0) {
+                    inflated.forEach { tabViewPool.putRecycledView(layoutRes, it) }
+                }
             }
-            textView.text = adapter.getPageTitle(i)
-            view.setOnClickListener(listener)
-            setLayoutParams(view, i, adapter.count)
-            slidingTabStrip.addView(view)
         }
+    }
 
-        // Make sure we reflect the currently set ViewPager item
-        if (viewPager != null && pagerAdapter != null && pagerAdapter!!.count > 0) {
-            val curItem = viewPager!!.currentItem
-            if (curItem != slidingTabStrip.getSelectedPosition()) {
-                slidingTabStrip.setTabSelected(true)
-                slidingTabStrip.setSelectedPosition(curItem)
+    /**
+     * Return whether the failure comes from a view that needs a looper, such as one creating a
+     * Handler, so it can be inflated on the main thread instead.
+     */
+    private fun isLooperFailure(e: Throwable): Boolean {
+        var cause: Throwable? = e
+        while (cause != null) {
+            if (cause.message?.contains("Looper.prepare()") == true) {
+                return true
+            }
+            cause = cause.cause
+        }
+        return false
+    }
+
+    /**
+     * Shape and measure the titles with the text metrics the tab text will have, off the main
+     * thread. The template text view is styled as [setLayoutParams] styles the tab text.
+     */
+    private fun createPrecomputedTitles(
+        titles: List<CharSequence?>,
+        template: TextView,
+        textSize: Float,
+        bold: Boolean
+    ): List<PrecomputedTextCompat?> {
+        template.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize)
+        template.typeface =
+            Typeface.create(template.typeface, if (bold) Typeface.BOLD else Typeface.NORMAL)
+        val params = TextViewCompat.getTextMetricsParams(template)
+        return titles.map { if (it.isNullOrEmpty()) null else PrecomputedTextCompat.create(it, params) }
+    }
+
+    /**
+     * Set the precomputed title on the tab text, if the tab still shows that title and its text
+     * metrics match, otherwise the tab keeps the plain title.
+     */
+    private fun setPrecomputedTitle(view: View, title: PrecomputedTextCompat?) {
+        title ?: return
+        val text = findTabTextView(view) ?: return
+        if (!TextUtils.equals(text.text, title)) {
+            return
+        }
+        try {
+            TextViewCompat.setPrecomputedText(text, title)
+        } catch (e: IllegalArgumentException) {
+            // The tab text is styled differently from the template.
+        }
+    }
+
+    private fun findTabTextView(view: View): TextView? {
+        return if (view is TextView) view else view.findViewById(R.id.sliding_tab_text)
+    }
+
+    /**
+     * Replace all tabs with canvas-drawn titles, from the prepared layouts when given.
+     */
+    private fun setCanvasTitles(
+        source: TabSource,
+        titles: List<CharSequence?>,
+        layouts: Array<StaticLayout?>?,
+        currentItem: Int,
+        listener: OnTabClickListener
+    ) {
+        slidingTabStrip.reset()
+        slidingTabStrip.setOnTabClickListener(listener)
+        slidingTabStrip.setTitles(titles, layouts)
+        if (source.hasIcons()) {
+            slidingTabStrip.setIcons(List(titles.size) { source.getIcon(it) })
+        }
+        selectPopulatedTab(titles.size, currentItem)
+    }
+
+    /**
+     * Build the layouts of the canvas-drawn titles in the background and swap the titles in
+     * on the main thread, until then the previous titles stay.
+     */
+    private fun prepareTitleLayoutsAsync(
+        source: TabSource,
+        titles: List<CharSequence?>,
+        currentItem: Int,
+        listener: OnTabClickListener
+    ) {
+        val executor = inflateExecutor ?: defaultInflateExecutor
+        val generation = inflateGeneration
+        val paint = slidingTabStrip.createTitlePaint()
+        slidingTabStrip.setSelectedPosition(currentItem)
+        executor.execute {
+            val layouts = TabTitleRenderer.buildLayouts(titles, paint)
+            mainHandler.post {
+                if (generation == inflateGeneration) {
+                    setCanvasTitles(
+                        source,
+                        titles,
+                        layouts,
+                        slidingTabStrip.getSelectedPosition(),
+                        listener
+                    )
+                }
             }
         }
+    }
+
+    private fun selectPopulatedTab(count: Int, currentItem: Int) {
+        // Make sure we reflect the currently set ViewPager item
+        if (count > 0 && currentItem != slidingTabStrip.getSelectedPosition()) {
+            slidingTabStrip.setTabSelected(true)
+            slidingTabStrip.setSelectedPosition(currentItem)
+        }
         onTabCreateListener?.onCreated()
     }
 
+    /**
+     * Bring the existing tab views to the titles and icons of the source. The unchanged tabs at
+     * the start and at the end are kept as they are, the tabs between them are rebound in place
+     * and views are only created or removed for the difference in count.
+     *
+     * @return false when there are no tab views to update, they must be created instead.
+     */
+    private fun updateTabViews(
+        source: TabSource,
+        titles: List<CharSequence?>,
+        icons: List<Drawable?>?
+    ): Boolean {
+        val oldTitles = boundTitles ?: return false
+        val oldIcons = boundIcons
+        val oldCount = oldTitles.size
+        if (oldCount == 0 || slidingTabStrip.getTabCount() != oldCount
+            || boundConfigGeneration != tabConfigGeneration
+        ) {
+            return false
+        }
+        val count = titles.size
+        val diff = TabRangeDiff.compute(oldCount, count) { oldPosition, position ->
+            isSameTab(oldTitles, oldIcons, oldPosition, titles, icons, position)
+        }
+        val prefix = diff.start
+        val oldChanged = diff.oldCount
+        val changed = diff.count
+        for (i in prefix until prefix + min(oldChanged, changed)) {
+            val view = slidingTabStrip.getTabView(i) ?: continue
+            bindTabView(view, source, i, count)
+            slidingTabStrip.notifyTabViewChanged(i)
+        }
+        if (changed > oldChanged) {
+            for (i in prefix + oldChanged until prefix + changed) {
+                slidingTabStrip.addTabView(createTabView(source, i, count), i)
+            }
+        } else if (oldChanged > changed) {
+            slidingTabStrip.removeTabViews(prefix + changed, oldChanged - changed)
+        }
+        if (changed != oldChanged) {
+            // Keep the indicator on its tab until the selection of the new source is applied.
+            slidingTabStrip.remapPositions(diff::mapPosition)
+            selectedTabScrollPending = true
+        }
+        updateTabPaddings(count, 0, oldCount - 1, count - 1)
+        return true
+    }
+
+    /**
+     * Return whether the bound tab views can be updated range by range to a source with the
+     * specified count, otherwise the tabs must be populated again.
+     */
+    private fun canUpdateTabRange(source: TabSource, count: Int): Boolean {
+        val titles = boundTitles ?: return false
+        return renderMode == RENDER_MODE_VIEW
+                && !(mode == MODE_SCROLLABLE && tabVirtualized)
+                && slidingTabStrip.getTabCount() == titles.size
+                && source.getCount() == count
+                && source.hasIcons() == (boundIcons != null)
+                && boundConfigGeneration == tabConfigGeneration
+    }
+
+    /**
+     * Rebind the tabs of the specified range to the source.
+     *
+     * @return false when the tabs must be populated again instead.
+     */
+    internal fun changeTabs(source: TabSource, start: Int, count: Int): Boolean {
+        val titles = boundTitles ?: return false
+        if (!canUpdateTabRange(source, titles.size) || start < 0 || start + count > titles.size) {
+            return false
+        }
+        for (i in start until start + count) {
+            titles[i] = source.getTitle(i)
+            boundIcons?.set(i, source.getIcon(i))
+            val view = slidingTabStrip.getTabView(i) ?: continue
+            bindTabView(view, source, i, titles.size)
+            slidingTabStrip.notifyTabViewChanged(i)
+        }
+        return true
+    }
+
+    /**
+     * Create the tabs of the specified range of the source, the tabs after them move on and
+     * the selected tab stays the same.
+     *
+     * @return false when the tabs must be populated again instead.
+     */
+    internal fun insertTabs(source: TabSource, start: Int, count: Int): Boolean {
+        val titles = boundTitles ?: return false
+        val tabCount = titles.size + count
+        if (!canUpdateTabRange(source, tabCount) || start < 0 || start > titles.size) {
+            return false
+        }
+        for (i in start until start + count) {
+            titles.add(i, source.getTitle(i))
+            boundIcons?.add(i, source.getIcon(i))
+            slidingTabStrip.addTabView(createTabView(source, i, tabCount), i)
+        }
+        // The first tabs of an empty tab layout have no selection to keep.
+        if (tabCount > count) {
+            slidingTabStrip.remapPositions(TabRangeDiff.inserted(start, count, tabCount)::mapPosition)
+        }
+        // The previous first or last tab may have moved away from the edge.
+        updateTabPaddings(tabCount, 0, start - 1, start + count, tabCount - 1)
+        selectedTabScrollPending = true
+        return true
+    }
+
+    /**
+     * Remove the tabs of the specified range, the tabs after them move back and the selected
+     * tab stays the same unless it was removed.
+     *
+     * @return false when the tabs must be populated again instead.
+     */
+    internal fun removeTabs(source: TabSource, start: Int, count: Int): Boolean {
+        val titles = boundTitles ?: return false
+        val tabCount = titles.size - count
+        if (!canUpdateTabRange(source, tabCount) || start < 0 || start + count > titles.size) {
+            return false
+        }
+        for (i in 0 until count) {
+            titles.removeAt(start)
+            boundIcons?.removeAt(start)
+        }
+        slidingTabStrip.removeTabViews(start, count)
+        slidingTabStrip.remapPositions(TabRangeDiff.removed(start, count, tabCount)::mapPosition)
+        updateTabPaddings(tabCount, 0, tabCount - 1)
+        selectedTabScrollPending = true
+        return true
+    }
+
+    /**
+     * Move a tab from one position to another, the selected tab stays the same.
+     *
+     * @return false when the tabs must be populated again instead.
+     */
+    internal fun moveTab(source: TabSource, from: Int, to: Int): Boolean {
+        val titles = boundTitles ?: return false
+        val tabCount = titles.size
+        if (!canUpdateTabRange(source, tabCount) || from !in 0 until tabCount || to !in 0 until tabCount) {
+            return false
+        }
+        titles.add(to, titles.removeAt(from))
+        boundIcons?.let { it.add(to, it.removeAt(from)) }
+        slidingTabStrip.moveTabView(from, to)
+        slidingTabStrip.remapPositions { TabRangeDiff.mapMovedPosition(it, from, to) }
+        updateTabPaddings(tabCount, 0, from, to, tabCount - 1)
+        selectedTabScrollPending = true
+        return true
+    }
+
+    /**
+     * Apply the tab paddings to the tab views at the specified positions, the paddings of the
+     * widget belong to the first and the last tab.
+     */
+    private fun updateTabPaddings(count: Int, vararg positions: Int) {
+        for (position in positions) {
+            if (position < 0 || position >= count) {
+                continue
+            }
+            val view = slidingTabStrip.getTabView(position) ?: continue
+            setTabPadding(view, position, count)
+        }
+    }
+
+    private fun isSameTab(
+        oldTitles: List<CharSequence?>,
+        oldIcons: List<Drawable?>?,
+        oldPosition: Int,
+        titles: List<CharSequence?>,
+        icons: List<Drawable?>?,
+        position: Int
+    ): Boolean {
+        if (!TextUtils.equals(oldTitles[oldPosition], titles[position])) {
+            return false
+        }
+        val oldIcon = oldIcons?.get(oldPosition)
+        val icon = icons?.get(position)
+        // Icons loaded again from the same resource share their constant state.
+        return oldIcon === icon || (oldIcon != null && icon != null
+                && oldIcon.constantState != null && oldIcon.constantState === icon.constantState)
+    }
+
+    /**
+     * Create the tab view of the specified position, from the pool when it has one.
+     *
+     * @param inflated A view just inflated from [getTabLayoutRes], or null to inflate one.
+     */
+    private fun createTabView(
+        source: TabSource,
+        position: Int,
+        count: Int,
+        inflated: View? = null
+    ): View {
+        if (inflated == null) {
+            val pooled = tabViewPool.getRecycledView(tabLayoutRes)
+            if (pooled != null) {
+                return bindTabView(pooled, source, position, count)
+            }
+        }
+        var view: View? = null
+        var textView: TextView? = null
+        var iconView: ImageView? = null
+        if (tabLayoutRes != 0) {
+            view = inflated
+                ?: LayoutInflater.from(this.context).inflate(tabLayoutRes, slidingTabStrip, false)
+            textView = view.findViewById(R.id.sliding_tab_text)
+            iconView = view.findViewById(R.id.sliding_tab_icon)
+            if (textView != null && textView.typeface != null) {
+                isTabTextBold = textView.typeface.isBold
+                slidingTabStrip.setTabTextBold(isTabTextBold)
+            }
+            if (iconView != null && source.hasIcons()) {
+                bindTabIcon(iconView, source.getIcon(position))
+            }
+        }
+        if (textView == null && view is TextView) {
+            textView = view
+        }
+        if (textView == null) {
+            textView = TabTextView(context)
+        }
+        if (view == null) {
+            view = textView
+        }
+        textView.text = source.getTitle(position)
+        setLayoutParams(view, position, count)
+        return view
+    }
+
+    /**
+     * Rebind a recycled tab view to the specified position, or create a tab view when there is
+     * nothing to recycle.
+     */
+    private fun bindTabView(recycled: View?, source: TabSource, position: Int, count: Int): View {
+        if (recycled == null) {
+            return createTabView(source, position, count)
+        }
+        val textView: TextView = if (recycled is TextView) {
+            recycled
+        } else {
+            recycled.findViewById(R.id.sliding_tab_text)
+        }
+        val iconView: ImageView? = recycled.findViewById(R.id.sliding_tab_icon)
+        if (iconView != null) {
+            // A source without icons clears the icon the view was bound to before.
+            bindTabIcon(iconView, if (source.hasIcons()) source.getIcon(position) else null)
+        }
+        textView.text = source.getTitle(position)
+        setLayoutParams(recycled, position, count)
+        return recycled
+    }
+
+    private fun bindTabIcon(iconView: ImageView, drawable: Drawable?) {
+        if (drawable != null) {
+            slidingTabStrip.setTabIcon(iconView, drawable)
+            iconView.visibility = VISIBLE
+        } else {
+            iconView.setImageDrawable(null)
+            iconView.setTag(R.id.sliding_tab_icon_tinted, null)
+            iconView.visibility = GONE
+        }
+    }
+
     private fun getAlphaColor(color: Int, alpha: Byte): Int {
         return Color.argb(alpha.toInt(), Color.red(color), Color.green(color), Color.blue(color))
     }
@@ -325,6 +1110,45 @@ open class SlidingTabLayout @JvmOverloads constructor(
         }
     }
 
+    override fun onLayout(changed: Boolean, l: Int, t: Int, r: Int, b: Int) {
+        super.onLayout(changed, l, t, r, b)
+        // Tabs were inserted, removed or moved, the selected tab may be somewhere else now.
+        if (selectedTabScrollPending) {
+            selectedTabScrollPending = false
+            scrollToSelectedTab(slidingTabStrip.getSelectedPosition(), 0f)
+        }
+    }
+
+    override fun onMeasure(widthMeasureSpec: Int, heightMeasureSpec: Int) {
+        // The fixed mode strip is measured at the viewport width in the first pass, only when
+        // that width is exact, wrapped fixed tabs keep their own width.
+        tabContainer.setViewportWidth(
+            if (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY) {
+                MeasureSpec.getSize(widthMeasureSpec) - paddingLeft - paddingRight
+            } else {
+                0
+            }
+        )
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec)
+    }
+
+    override fun onSizeChanged(w: Int, h: Int, oldw: Int, oldh: Int) {
+        super.onSizeChanged(w, h, oldw, oldh)
+        updateTabViewport()
+    }
+
+    override fun onScrollChanged(l: Int, t: Int, oldl: Int, oldt: Int) {
+        super.onScrollChanged(l, t, oldl, oldt)
+        updateTabViewport()
+    }
+
+    /**
+     * Tell the tab strip which of its range is visible, it is placed at the left padding.
+     */
+    private fun updateTabViewport() {
+        slidingTabStrip.setViewport(scrollX - paddingLeft, scrollX - paddingLeft + width)
+    }
+
     fun setSmoothScroll(smoothScroll: Boolean) {
         this.smoothScroll = smoothScroll
     }
@@ -337,6 +1161,7 @@ open class SlidingTabLayout @JvmOverloads constructor(
         tabTextColor = color
         slidingTabStrip.setTabText(tabTextSize, color)
         slidingTabStrip.invalidate()
+        tabConfigGeneration++
     }
 
     fun getTabTextSize(): Float {
@@ -347,6 +1172,7 @@ open class SlidingTabLayout @JvmOverloads constructor(
         tabTextSize = size
         slidingTabStrip.setTabText(tabTextSize, tabTextColor)
         slidingTabStrip.invalidate()
+        tabConfigGeneration++
     }
 
     fun getTabSelectedTextSize(): Float {
@@ -372,16 +1198,46 @@ open class SlidingTabLayout @JvmOverloads constructor(
         slidingTabStrip.setDividerColors(*colors)
     }
 
+    /**
+     * Set the palette the tab colors are taken from. The colors of every position are resolved
+     * once when the palette is set or the tab count changes, set the palette again to pick up
+     * colors it returns differently later.
+     *
+     * @param tabPalette The palette
+     */
     fun setCustomTabPalette(tabPalette: TabPalette) {
         slidingTabStrip.setCustomTabPalette(tabPalette)
     }
 
+    /**
+     * Blend the tab colors while swiping in linear light instead of sRGB.
+     *
+     * @param linear true to blend in linear light, false otherwise.
+     */
+    fun setLinearColorBlending(linear: Boolean) {
+        slidingTabStrip.setLinearColorBlending(linear)
+    }
+
     internal fun getSlidingTabStrip(): SlidingTabStrip {
         return slidingTabStrip
     }
 
+    /**
+     * Return the view of the specified tab. Use [findTabAt] when the tab may have no view.
+     *
+     * @throws IllegalStateException In [RENDER_MODE_CANVAS] and for a virtualized tab that is
+     * not near the visible range.
+     */
     fun getTabAt(index: Int): View {
-        return slidingTabStrip.getChildAt(index)
+        return findTabAt(index) ?: throw IllegalStateException("The tab at $index has no view")
+    }
+
+    /**
+     * Return the view of the specified tab, null in [RENDER_MODE_CANVAS] and for a virtualized
+     * tab that is not near the visible range.
+     */
+    fun findTabAt(index: Int): View? {
+        return slidingTabStrip.getTabView(index)
     }
 
     fun setOnTabCreatedListener(listener: OnTabCreateListener) {
@@ -426,12 +1282,28 @@ open class SlidingTabLayout @JvmOverloads constructor(
         return onTabSelectedListener
     }
 
+    /**
+     * Register a callback to be invoked when the color of the current page changes. It is
+     * called at most once per frame, outside the draw pass, and only when the color actually
+     * changed.
+     *
+     * @param listener The callback that will run
+     */
     fun setOnColorChangedListener(listener: OnColorChangeListener?) {
         slidingTabStrip.setOnColorChangeListener(listener)
     }
 
+    /**
+     * Round every channel of the dispatched color to a multiple of the specified step, so
+     * near-identical colors while swiping do not cause another [OnColorChangeListener] callback.
+     *
+     * @param step The quantization step, 1 or less to dispatch the exact color.
+     */
+    fun setColorChangeQuantizeStep(step: Int) {
+        slidingTabStrip.setColorChangeQuantizeStep(step)
+    }
+
     fun setLayoutParams(view: View, position: Int, count: Int) {
-        view.setPadding(tabPaddingStart, tabPaddingTop, tabPaddingEnd, tabPaddingBottom)
         val text: TextView = if (view is TextView) {
             view
         } else {
@@ -439,15 +1311,21 @@ open class SlidingTabLayout @JvmOverloads constructor(
         }
         text.gravity = Gravity.CENTER_HORIZONTAL or Gravity.CENTER_VERTICAL
         text.setTextSize(TypedValue.COMPLEX_UNIT_PX, tabTextSize)
-        text.setTextColor(tabTextColor)
-        text.typeface =
-            Typeface.create(text.typeface, if (isTabTextBold) Typeface.BOLD else Typeface.NORMAL)
-        val layoutParams = if (mode == MODE_FIXED) {
-            LinearLayout.LayoutParams(0, LayoutParams.WRAP_CONTENT, 1.0f)
+        if (text is TabTextView) {
+            text.setTabTextColor(tabTextColor)
         } else {
-            LinearLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT, 0.0f)
+            text.setTextColor(tabTextColor)
         }
-        view.layoutParams = layoutParams
+        text.typeface =
+            Typeface.create(text.typeface, if (isTabTextBold) Typeface.BOLD else Typeface.NORMAL)
+        // The tab strip splits the width itself in the fixed mode.
+        view.layoutParams =
+            SlidingTabStrip.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT)
+        setTabPadding(view, position, count)
+    }
+
+    private fun setTabPadding(view: View, position: Int, count: Int) {
+        view.setPadding(tabPaddingStart, tabPaddingTop, tabPaddingEnd, tabPaddingBottom)
         if (position == 0 && leftPadding > 0) {
             view.setPadding(
                 leftPadding.toInt() + tabPaddingStart,
@@ -481,6 +1359,7 @@ open class SlidingTabLayout @JvmOverloads constructor(
          * @see ViewPager.SCROLL_STATE_SETTLING
          */
         override fun onPageScrollStateChanged(state: Int) {
+            mTabLayout.slidingTabStrip.setPagerScrolling(state != ViewPager.SCROLL_STATE_IDLE)
             mTabLayout.slidingTabStrip.setTabSelected(state == ViewPager.SCROLL_STATE_IDLE)
         }
 
@@ -498,8 +1377,8 @@ open class SlidingTabLayout @JvmOverloads constructor(
             positionOffset: Float,
             @Px positionOffsetPixels: Int
         ) {
-            val childCount = mTabLayout.slidingTabStrip.childCount
-            if (position in 0 until childCount) {
+            val tabCount = mTabLayout.slidingTabStrip.getTabCount()
+            if (position in 0 until tabCount) {
                 mTabLayout.slidingTabStrip.setFirstPagePosition(position, positionOffset)
                 mTabLayout.scrollToSelectedTab(position, positionOffset)
             }
@@ -540,28 +1419,16 @@ open class SlidingTabLayout @JvmOverloads constructor(
      * @param positionOffset    the position offset
      */
     fun scrollToSelectedTab(firstPagePosition: Int, positionOffset: Float) {
-        val childCount = slidingTabStrip.childCount
-        if (childCount == 0) {
+        val tabCount = slidingTabStrip.getTabCount()
+        if (tabCount == 0) {
+            return
+        }
+        if (firstPagePosition >= tabCount) {
             return
         }
-        val firstPageTabView = slidingTabStrip.getChildAt(firstPagePosition)
-        val offset = firstPageTabView.width * positionOffset
-        var scrollX = paddingLeft + firstPageTabView.left + offset - width / 2
-        var left = 0f
-        var right = 0f
-        if (firstPagePosition < childCount - 1) {
-            // Sliding the page.
-            val secondPageTabView = slidingTabStrip.getChildAt(firstPagePosition + 1)
-            left =
-                firstPageTabView.left + positionOffset * (secondPageTabView.left - firstPageTabView.left)
-            right =
-                firstPageTabView.right + positionOffset * (secondPageTabView.right - firstPageTabView.right)
-        } else if (firstPagePosition == childCount - 1) {
-            // After selected the last page.
-            left = firstPageTabView.left.toFloat()
-            right = firstPageTabView.right.toFloat()
-        }
-        scrollX += (right - left) / 2
+        // The center of the tab, moving towards the center of the next tab while sliding.
+        val center = slidingTabStrip.getScrollCenter(firstPagePosition, positionOffset)
+        val scrollX = paddingLeft + center - width / 2
         scrollTo(scrollX.toInt(), 0)
     }
 
@@ -570,20 +1437,15 @@ open class SlidingTabLayout @JvmOverloads constructor(
     }
 
     private inner class TabClickListener constructor(private val mTabLayout: SlidingTabLayout) :
-        OnClickListener {
-        override fun onClick(view: View) {
-            for (i in 0 until mTabLayout.slidingTabStrip.childCount) {
-                if (view === mTabLayout.slidingTabStrip.getChildAt(i)) {
-                    mTabLayout.slidingTabStrip.setTabSelected(true)
-                    mTabLayout.onTabClickListener?.onClick(i)
-                    val viewPager = mTabLayout.viewPager
-                    if (viewPager != null && viewPager.currentItem == i) {
-                        mTabLayout.onSelectedTabClickListener?.onClick(i)
-                    }
-                    viewPager?.setCurrentItem(i, smoothScroll)
-                    break
-                }
+        OnTabClickListener {
+        override fun onClick(position: Int) {
+            mTabLayout.slidingTabStrip.setTabSelected(true)
+            mTabLayout.onTabClickListener?.onClick(position)
+            val viewPager = mTabLayout.viewPager
+            if (viewPager != null && viewPager.currentItem == position) {
+                mTabLayout.onSelectedTabClickListener?.onClick(position)
             }
+            viewPager?.setCurrentItem(position, smoothScroll)
         }
     }
 
@@ -597,6 +1459,41 @@ open class SlidingTabLayout @JvmOverloads constructor(
         }
     }
 
+    private class PagerTabSource(private val adapter: PagerAdapter) : TabSource {
+        override fun getCount(): Int {
+            return adapter.count
+        }
+
+        override fun getTitle(position: Int): CharSequence? {
+            return adapter.getPageTitle(position)
+        }
+
+        override fun hasIcons(): Boolean {
+            return adapter is SlidingTabPageAdapter
+        }
+
+        override fun getIcon(position: Int): Drawable? {
+            return (adapter as? SlidingTabPageAdapter)?.getDrawable(position)
+        }
+    }
+
+    /**
+     * The titles and icons the tabs are populated from.
+     */
+    internal interface TabSource {
+        fun getCount(): Int
+
+        fun getTitle(position: Int): CharSequence?
+
+        /**
+         * Return whether [getIcon] is backed by the adapter, icon views are left untouched
+         * otherwise.
+         */
+        fun hasIcons(): Boolean
+
+        fun getIcon(position: Int): Drawable?
+    }
+
     abstract class SlidingTabPageAdapter(fm: FragmentManager) : FragmentPagerAdapter(fm) {
         /**
          * Returns the specified position icon.
@@ -680,8 +1577,85 @@ open class SlidingTabLayout @JvmOverloads constructor(
         fun onSelected(position: Int)
     }
 
+    /**
+     * An inflater without the factories of the activity, which must only be used on the main
+     * thread. Framework views are looked up the way the framework inflater of the phone does.
+     */
+    private class BasicInflater(context: Context) : LayoutInflater(context) {
+        override fun cloneInContext(newContext: Context): LayoutInflater {
+            return BasicInflater(newContext)
+        }
+
+        override fun onCreateView(name: String, attrs: AttributeSet): View? {
+            for (prefix in CLASS_PREFIXES) {
+                try {
+                    createView(name, prefix, attrs)?.let { return it }
+                } catch (e: ClassNotFoundException) {
+                    // Try the next package.
+                }
+            }
+            return super.onCreateView(name, attrs)
+        }
+
+        companion object {
+            private val CLASS_PREFIXES = arrayOf("android.widget.", "android.webkit.", "android.app.")
+        }
+    }
+
     companion object {
-        private const val MODE_SCROLLABLE = 0
-        private const val MODE_FIXED = 1
+        const val MODE_SCROLLABLE = 0
+        const val MODE_FIXED = 1
+
+        /**
+         * Every tab is a view, inflated from [getTabLayoutRes] or a plain TextView.
+         */
+        const val RENDER_MODE_VIEW = 0
+
+        /**
+         * All titles are drawn by the tab strip itself, no view is created per tab.
+         */
+        const val RENDER_MODE_CANVAS = 1
+
+        /**
+         * The selected tab text is resized through its text size.
+         */
+        const val TEXT_SCALE_MODE_SIZE = 0
+
+        /**
+         * The selected tab text is resized through its scaleX and scaleY properties.
+         */
+        const val TEXT_SCALE_MODE_TRANSFORM = 1
+
+        /**
+         * The swiped tab texts blend from one color to the other.
+         */
+        const val TEXT_TRANSITION_BLEND = 0
+
+        /**
+         * The swiped tab texts are filled with the other color from their start, as far as the
+         * page is dragged.
+         */
+        const val TEXT_TRANSITION_FILL = 1
+
+        /**
+         * The tab texts only change when a page is selected, nothing is done while swiping.
+         */
+        const val TEXT_TRANSITION_DISCRETE = 2
+
+        // The values of stl_tabIndicatorMotion.
+        private const val INDICATOR_MOTION_LINEAR = 0
+        private const val INDICATOR_MOTION_CREEP = 1
+        private const val INDICATOR_MOTION_WORM = 2
+        private const val INDICATOR_MOTION_DOT_EXPAND = 3
+
+        private val mainHandler by lazy { Handler(Looper.getMainLooper()) }
+
+        private val defaultInflateExecutor: Executor by lazy {
+            Executors.newSingleThreadExecutor { runnable ->
+                val thread = Thread(runnable, "SlidingTabLayout-inflate")
+                thread.isDaemon = true
+                thread
+            }
+        }
     }
 }
\ No newline at end of file
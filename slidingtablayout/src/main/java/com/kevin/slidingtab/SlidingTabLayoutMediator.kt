@@ -1,10 +1,6 @@
 package com.kevin.slidingtab
 
 import android.graphics.drawable.Drawable
-import android.view.LayoutInflater
-import android.view.View
-import android.widget.ImageView
-import android.widget.TextView
 import androidx.fragment.app.Fragment
 import androidx.fragment.app.FragmentActivity
 import androidx.fragment.app.FragmentManager
@@ -13,6 +9,7 @@ import androidx.recyclerview.widget.RecyclerView
 import androidx.viewpager2.adapter.FragmentStateAdapter
 import androidx.viewpager2.widget.ViewPager2
 import androidx.viewpager2.widget.ViewPager2.OnPageChangeCallback
+import com.kevin.slidingtab.SlidingTabLayout.OnTabClickListener
 import com.kevin.slidingtab.SlidingTabLayout.OnTabSelectedListener
 import java.lang.ref.WeakReference
 
@@ -100,58 +97,12 @@ class SlidingTabLayoutMediator @JvmOverloads constructor(
     }
 
     fun populateTabsFromPagerAdapter() {
-        if (adapter == null) {
-            return
-        }
-        tabLayout.getSlidingTabStrip().reset()
-        val listener = TabClickListener(tabLayout)
-        for (i in 0 until adapter!!.itemCount) {
-            var view: View? = null
-            var text: TextView? = null
-            var image: ImageView? = null
-            if (tabLayout.getTabLayoutRes() != 0) {
-                view = LayoutInflater.from(tabLayout.context)
-                    .inflate(tabLayout.getTabLayoutRes(), tabLayout.getSlidingTabStrip(), false)
-                text = view.findViewById(R.id.sliding_tab_text)
-                image = view.findViewById(R.id.sliding_tab_icon)
-                if (text != null && text.typeface != null) {
-                    val isTabTextBold = text.typeface.isBold
-                    tabLayout.getSlidingTabStrip().setTabTextBold(isTabTextBold)
-                    tabLayout.setTabTextBold(isTabTextBold)
-                }
-                if (image != null) {
-                    val drawable = adapter!!.getDrawable(i)
-                    if (drawable != null) {
-                        image.setImageDrawable(drawable)
-                    } else {
-                        image.visibility = View.GONE
-                    }
-                }
-            }
-            if (text == null && view is TextView) {
-                text = view
-            }
-            if (text == null) {
-                text = TextView(tabLayout.context)
-            }
-            if (view == null) {
-                view = text
-            }
-            text.text = adapter!!.getPageTitle(i)
-            view.setOnClickListener(listener)
-            tabLayout.setLayoutParams(view, i, adapter!!.itemCount)
-            tabLayout.getSlidingTabStrip().addView(view)
-        }
-
-        // Make sure we reflect the currently set ViewPager item
-        if (adapter != null && adapter!!.itemCount > 0) {
-            val curItem = viewPager.currentItem
-            if (curItem != tabLayout.getSlidingTabStrip().getSelectedPosition()) {
-                tabLayout.getSlidingTabStrip().setTabSelected(true)
-                tabLayout.getSlidingTabStrip().setSelectedPosition(curItem)
-            }
-        }
-        tabLayout.getOnTabCreatedListener()?.onCreated()
+        val adapter = adapter ?: return
+        tabLayout.populateTabs(
+            PagerTabSource(adapter),
+            viewPager.currentItem,
+            TabClickListener(tabLayout)
+        )
     }
 
     /**
@@ -172,7 +123,9 @@ class SlidingTabLayoutMediator @JvmOverloads constructor(
 
         override fun onPageScrollStateChanged(state: Int) {
             val tabLayout = tabLayoutRef.get()
-            tabLayout?.getSlidingTabStrip()?.setTabSelected(state == ViewPager2.SCROLL_STATE_IDLE)
+            val slidingTabStrip = tabLayout?.getSlidingTabStrip() ?: return
+            slidingTabStrip.setPagerScrolling(state != ViewPager2.SCROLL_STATE_IDLE)
+            slidingTabStrip.setTabSelected(state == ViewPager2.SCROLL_STATE_IDLE)
         }
 
         override fun onPageScrolled(
@@ -182,8 +135,8 @@ class SlidingTabLayoutMediator @JvmOverloads constructor(
         ) {
             val tabLayout = tabLayoutRef.get()
             if (tabLayout != null) {
-                val childCount: Int = tabLayout.getSlidingTabStrip().childCount
-                if (position in 0 until childCount) {
+                val tabCount: Int = tabLayout.getSlidingTabStrip().getTabCount()
+                if (position in 0 until tabCount) {
                     tabLayout.getSlidingTabStrip().setFirstPagePosition(position, positionOffset)
                     tabLayout.scrollToSelectedTab(position, positionOffset)
                 }
@@ -220,23 +173,34 @@ class SlidingTabLayoutMediator @JvmOverloads constructor(
         }
 
         override fun onItemRangeChanged(positionStart: Int, itemCount: Int) {
-            populateTabsFromPagerAdapter()
+            updateTabs { tabLayout.changeTabs(it, positionStart, itemCount) }
         }
 
         override fun onItemRangeChanged(positionStart: Int, itemCount: Int, payload: Any?) {
-            populateTabsFromPagerAdapter()
+            updateTabs { tabLayout.changeTabs(it, positionStart, itemCount) }
         }
 
         override fun onItemRangeInserted(positionStart: Int, itemCount: Int) {
-            populateTabsFromPagerAdapter()
+            updateTabs { tabLayout.insertTabs(it, positionStart, itemCount) }
         }
 
         override fun onItemRangeRemoved(positionStart: Int, itemCount: Int) {
-            populateTabsFromPagerAdapter()
+            updateTabs { tabLayout.removeTabs(it, positionStart, itemCount) }
         }
 
         override fun onItemRangeMoved(fromPosition: Int, toPosition: Int, itemCount: Int) {
-            populateTabsFromPagerAdapter()
+            // RecyclerView only ever moves a single item.
+            updateTabs { itemCount == 1 && tabLayout.moveTab(it, fromPosition, toPosition) }
+        }
+
+        /**
+         * Update only the affected tabs, or populate all tabs again when the tab layout can not.
+         */
+        private inline fun updateTabs(update: (SlidingTabLayout.TabSource) -> Boolean) {
+            val adapter = adapter ?: return
+            if (!update(PagerTabSource(adapter))) {
+                populateTabsFromPagerAdapter()
+            }
         }
     }
 
@@ -274,20 +238,34 @@ class SlidingTabLayoutMediator @JvmOverloads constructor(
         abstract fun getPageTitle(position: Int): CharSequence?
     }
 
+    private class PagerTabSource(private val adapter: SlidingTabPageAdapter) :
+        SlidingTabLayout.TabSource {
+        override fun getCount(): Int {
+            return adapter.itemCount
+        }
+
+        override fun getTitle(position: Int): CharSequence? {
+            return adapter.getPageTitle(position)
+        }
+
+        override fun hasIcons(): Boolean {
+            return true
+        }
+
+        override fun getIcon(position: Int): Drawable? {
+            return adapter.getDrawable(position)
+        }
+    }
+
     private inner class TabClickListener constructor(private val mTabLayout: SlidingTabLayout) :
-        View.OnClickListener {
-        override fun onClick(view: View) {
-            for (i in 0 until mTabLayout.getSlidingTabStrip().childCount) {
-                if (view === mTabLayout.getSlidingTabStrip().getChildAt(i)) {
-                    mTabLayout.getSlidingTabStrip().setTabSelected(true)
-                    mTabLayout.getOnTabClickListener()?.onClick(i)
-                    if (viewPager.currentItem == i) {
-                        mTabLayout.getOnSelectedTabClickListener()?.onClick(i)
-                    }
-                    viewPager.setCurrentItem(i, tabLayout.getSmoothScroll())
-                    break
-                }
+        OnTabClickListener {
+        override fun onClick(position: Int) {
+            mTabLayout.getSlidingTabStrip().setTabSelected(true)
+            mTabLayout.getOnTabClickListener()?.onClick(position)
+            if (viewPager.currentItem == position) {
+                mTabLayout.getOnSelectedTabClickListener()?.onClick(position)
             }
+            viewPager.setCurrentItem(position, tabLayout.getSmoothScroll())
         }
     }
 }
\ No newline at end of file
@@ -19,19 +19,48 @@ import android.animation.ValueAnimator
 import android.animation.ValueAnimator.AnimatorUpdateListener
 import android.content.Context
 import android.graphics.Canvas
+import android.graphics.LinearGradient
 import android.graphics.Color
 import android.graphics.Paint
+import android.graphics.PorterDuff
+import android.graphics.PorterDuffColorFilter
+import android.graphics.Rect
 import android.graphics.RectF
+import android.graphics.Shader
+import android.graphics.Typeface
 import android.graphics.drawable.Drawable
+import android.os.Bundle
+import android.text.Layout
+import android.text.StaticLayout
+import android.text.TextPaint
+import android.util.AttributeSet
+import android.util.SparseArray
 import android.util.TypedValue
 import android.view.Gravity
-import android.view.animation.AccelerateInterpolator
-import android.view.animation.DecelerateInterpolator
-import android.widget.LinearLayout
+import android.view.KeyEvent
+import android.view.MotionEvent
+import android.view.SoundEffectConstants
+import android.view.View
+import android.view.ViewConfiguration
+import android.view.ViewGroup
+import android.view.accessibility.AccessibilityEvent
+import android.widget.ImageView
 import android.widget.TextView
 import androidx.annotation.ColorInt
+import androidx.collection.LongSparseArray
+import androidx.core.view.ViewCompat
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat.AccessibilityActionCompat
+import androidx.core.widget.TextViewCompat
+import androidx.customview.widget.ExploreByTouchHelper
 import com.kevin.slidingtab.SlidingTabLayout.OnColorChangeListener
+import com.kevin.slidingtab.SlidingTabLayout.OnTabClickListener
 import com.kevin.slidingtab.SlidingTabLayout.TabPalette
+import kotlin.math.abs
+import kotlin.math.ceil
+import kotlin.math.floor
+import kotlin.math.max
+import kotlin.math.min
 
 /**
  * SlidingTabStrip
@@ -39,17 +68,25 @@ import com.kevin.slidingtab.SlidingTabLayout.TabPalette
  * @author zwenkai@foxmail.com, Created on 2018-09-29 14:26:35
  * Major Function：<b>SlidingTabStrip</b>
  *
+ * Lays the tabs out in a row. Every tab is measured once per measure pass, in
+ * [SlidingTabLayout.MODE_FIXED] the width is split arithmetically instead of by weights.
+ * Virtualized tabs are measured once into a prefix sum of widths, only the tabs near the
+ * viewport are bound to child views and the views of the others are recycled.
  *
  * Note: If you modify this class please fill in the following content as a record.
  * @author mender，Modified Date Modify Content:
  */
-internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
+internal class SlidingTabStrip(context: Context) : ViewGroup(context) {
     private var leftPadding = 0f
     private var rightPadding = 0f
     private var isTabSelected: Boolean
     private var isTabTextBold = false
     private var isTabTextSelectedBold = false
     private var showTabTextScaleAnim = false
+    private var textScaleMode = SlidingTabLayout.TEXT_SCALE_MODE_SIZE
+    private var tabTransition = TabTransition.BLEND
+    private val transitionState = TabTransition.State { canDrawTextFill(it) }
+    private val textPivotUpdater: OnLayoutChangeListener
     private var firstPagePosition = 0
     private var firstPagePositionOffset = 0f
     private var tabTextColor: Int
@@ -59,8 +96,11 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
     private var selectedPosition: Int
     private var dividerWidth = 0f
     private var dividerPadding = 0f
-    private val dividerPaint: Paint
-    private var indicatorCreep = false
+    private val dividerRenderer = TabDividerRenderer()
+    private var indicatorMotion = IndicatorMotion.LINEAR
+    private var indicatorGradient = false
+    private val indicatorGradients = LongSparseArray<LinearGradient>()
+    private var indicatorGradientsVersion = -1
     private var indicatorHeight = 0f
     private var indicatorWidth = 0f
     private var indicatorWidthRatio = 0f
@@ -70,13 +110,75 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
     private var indicatorTopMargin = 0f
     private var indicatorBottomMargin = 0f
     private var indicatorGravity = 0
-    private val indicatorPaint: Paint
+    private val indicatorView: IndicatorView
+    private val pillView: IndicatorView
+    private val dividerView: View
+    @ColorInt
+    private var pillColor = 0
+    private var pillCornerRadius = -1f
+    private var pillHorizontalMargin = 0f
+    private var pillVerticalMargin = 0f
     private val indicatorRectF: RectF
-    private val leftInterpolator: AccelerateInterpolator
-    private val rightInterpolator: DecelerateInterpolator
     private var customTabPalette: TabPalette? = null
     private val tabPalette: SimpleTabPalette
+    private val paletteCache: TabPaletteCache
     private var onColorChangeListener: OnColorChangeListener? = null
+    private var colorQuantizeStep = 1
+    private var lastDispatchedColor = 0
+    private var hasDispatchedColor = false
+    private var onTabClickListener: OnTabClickListener? = null
+    private val tabViewClickListener: OnClickListener
+    private var tabMode = SlidingTabLayout.MODE_FIXED
+    private var renderMode = SlidingTabLayout.RENDER_MODE_VIEW
+    private var tabGravity = Gravity.CENTER_VERTICAL
+    private var tabPaddingStart = 0
+    private var tabPaddingTop = 0
+    private var tabPaddingEnd = 0
+    private var tabPaddingBottom = 0
+    private val titleRenderer: TabTitleRenderer
+    private val titleAccessibilityHelper = TitleAccessibilityHelper()
+    private val iconAtlas = TabIconAtlas()
+    private var iconSize = 0
+    private var iconPadding = 0f
+    private var iconTint = false
+    private var titleLefts = FloatArray(0)
+    private var titleRights = FloatArray(0)
+    private val geometry = TabGeometry()
+    private var tabViewBinder: TabViewBinder? = null
+    private var virtualCount = 0
+    private var virtualTitles = emptyList<CharSequence?>()
+    private var virtualLefts = FloatArray(1)
+    private var virtualHeight = 0
+    private var virtualHeightMeasureSpec = 0
+    private var virtualWidthsValid = false
+    private var virtualBoundFirst = -1
+    private var virtualBoundLast = -1
+    private val virtualViews = SparseArray<View>()
+    private val recycledViews = ArrayList<View>()
+    private var viewportLeft = 0
+    private var viewportRight = 0
+    private var tabViewPool: TabViewPool? = null
+    private var tabViewType = 0
+    private var scrollLayersEnabled = false
+    private var scrollLayerPaints = arrayOfNulls<Paint>(0)
+    private val colorFilters = SparseArray<PorterDuffColorFilter>()
+    private val visibleRect = Rect()
+    private var geometryValid = false
+    private val touchSlop: Int
+    private var touchDownX = 0f
+    private var touchDownY = 0f
+    private var lastFirstPagePosition = 0
+    private var appliedStyles = arrayOf<TabStyle>()
+    private var appliedStylesValid = false
+    private val resolvedStyle = TabStyle()
+    private var statePassScheduled = false
+    private val dirtyRect = Rect()
+    private var collectingDirtyRegion = false
+    private val statePass = Runnable {
+        statePassScheduled = false
+        applyTabStates()
+    }
+    private val clipRect = Rect()
 
     init {
         setWillNotDraw(false)
@@ -84,26 +186,158 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
         lastSelectedPosition = -1
         selectedPosition = 0
         isTabSelected = true
-        leftInterpolator = AccelerateInterpolator()
-        rightInterpolator = DecelerateInterpolator()
         tabPalette = SimpleTabPalette()
+        paletteCache = TabPaletteCache()
+        paletteCache.setNormalTextColor(tabTextColor)
         tabPalette.setTextColors(Color.DKGRAY)
-        indicatorPaint = Paint()
-        dividerPaint = Paint()
-        dividerPaint.strokeWidth = dividerWidth
+        indicatorView = IndicatorView(context)
+        pillView = IndicatorView(context)
+        dividerView = object : View(context) {
+            override fun onDraw(canvas: Canvas) {
+                drawDividers(canvas)
+            }
+        }
         indicatorRectF = RectF()
+        titleRenderer = TabTitleRenderer()
+        touchSlop = ViewConfiguration.get(context).scaledTouchSlop
+        textPivotUpdater = OnLayoutChangeListener { view, _, _, _, _, _, _, _, _ ->
+            // Scale around the horizontal center of the text baseline.
+            view.pivotX = view.width / 2f
+            view.pivotY = (view as TextView).baseline.toFloat()
+        }
+        tabViewClickListener = OnClickListener { view ->
+            val index = getTabPosition(view)
+            if (index >= 0) {
+                onTabClickListener?.onClick(index)
+            }
+        }
     }
 
     fun setLeftPadding(leftPadding: Float) {
         this.leftPadding = leftPadding
+        geometryValid = false
     }
 
     fun setRightPadding(rightPadding: Float) {
         this.rightPadding = rightPadding
+        geometryValid = false
+    }
+
+    fun setTabMode(@SlidingTabLayout.TabMode mode: Int) {
+        tabMode = mode
+    }
+
+    @SlidingTabLayout.TabMode
+    fun getTabMode(): Int {
+        return tabMode
+    }
+
+    fun setRenderMode(@SlidingTabLayout.RenderMode mode: Int) {
+        renderMode = mode
+        // Canvas-drawn titles have no view, they are exposed as virtual views instead.
+        val canvasMode = isCanvasMode()
+        ViewCompat.setAccessibilityDelegate(this, if (canvasMode) titleAccessibilityHelper else null)
+        isFocusable = canvasMode
+    }
+
+    private fun isCanvasMode(): Boolean {
+        return renderMode == SlidingTabLayout.RENDER_MODE_CANVAS
+    }
+
+    /**
+     * Set the tabs as virtualized tabs, replacing the tabs added before. Only the tabs near the
+     * viewport get a view from the binder, see [setViewport].
+     *
+     * @param titles The title of every tab, the tab widths are measured from them.
+     * @param binder Creates the view of a tab or rebinds a recycled one.
+     */
+    fun setVirtualTabs(titles: List<CharSequence?>, binder: TabViewBinder) {
+        val count = titles.size
+        tabViewBinder = binder
+        virtualTitles = titles
+        virtualCount = count
+        virtualLefts = FloatArray(count + 1)
+        virtualWidthsValid = false
+        invalidateTabStates()
+        requestLayout()
+    }
+
+    private fun isVirtual(): Boolean {
+        return tabViewBinder != null
+    }
+
+    /**
+     * Set the range of the strip the tab layout currently shows. The virtualized tabs within one
+     * viewport width of it are bound in the next layout pass, the views of the others are
+     * recycled.
+     *
+     * @param left  The left of the visible range, in the coordinates of this strip.
+     * @param right The right of the visible range, in the coordinates of this strip.
+     */
+    fun setViewport(left: Int, right: Int) {
+        if (viewportLeft == left && viewportRight == right) {
+            return
+        }
+        viewportLeft = left
+        viewportRight = right
+        // The views are only bound in a layout pass, one is requested once the range to bind
+        // leaves the bound one.
+        if (isVirtual() && virtualWidthsValid && !isLayoutRequested && virtualCount > 0) {
+            val margin = right - left
+            val first = findVirtualTab((left - margin - paddingLeft).toFloat())
+            val last = findVirtualTab((right + margin - paddingLeft).toFloat())
+            if (first != virtualBoundFirst || last != virtualBoundLast) {
+                requestLayout()
+            }
+        }
+    }
+
+    /**
+     * Return the view of the specified tab, null for a canvas-drawn title and for a virtualized
+     * tab that is not near the viewport.
+     */
+    fun getTabView(index: Int): View? {
+        if (isCanvasMode() || index < 0 || index >= getTabCount()) {
+            return null
+        }
+        return if (isVirtual()) virtualViews.get(index) else getChildAt(index)
+    }
+
+    /**
+     * Return the position of the specified tab view, or -1.
+     */
+    private fun getTabPosition(view: View): Int {
+        if (!isVirtual()) {
+            return indexOfChild(view)
+        }
+        val i = virtualViews.indexOfValue(view)
+        return if (i >= 0) virtualViews.keyAt(i) else -1
+    }
+
+    fun setTabGravity(gravity: Int) {
+        tabGravity = gravity
+        requestLayout()
+    }
+
+    fun setTabPadding(start: Int, top: Int, end: Int, bottom: Int) {
+        tabPaddingStart = start
+        tabPaddingTop = top
+        tabPaddingEnd = end
+        tabPaddingBottom = bottom
+    }
+
+    /**
+     * Set whether the indicator shows a gradient between the colors of the swiped tabs. Only
+     * applies while the indicator takes its color from the tabs.
+     */
+    fun setIndicatorGradient(gradient: Boolean) {
+        indicatorGradient = gradient
+        updateIndicator()
     }
 
-    fun setIndicatorCreep(creep: Boolean) {
-        indicatorCreep = creep
+    fun setIndicatorMotion(motion: IndicatorMotion) {
+        indicatorMotion = motion
+        updateIndicator()
     }
 
     fun setIndicatorHeight(height: Float) {
@@ -112,10 +346,12 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
 
     fun setIndicatorWidth(width: Float) {
         indicatorWidth = width
+        geometryValid = false
     }
 
     fun setIndicatorWidthRatio(widthRatio: Float) {
         indicatorWidthRatio = widthRatio
+        geometryValid = false
     }
 
     fun setIndicatorColor(color: Int) {
@@ -124,10 +360,60 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
 
     fun setIndicatorDrawable(drawable: Drawable?) {
         indicatorDrawable = drawable
+        indicatorView.setDrawable(drawable)
     }
 
     fun setIndicatorCornerRadius(cornerRadius: Float) {
         indicatorCornerRadius = cornerRadius
+        indicatorView.setCornerRadius(cornerRadius)
+    }
+
+    /**
+     * Return the layer the indicator is drawn on, it must be added below this tab strip with
+     * the same bounds.
+     */
+    fun getIndicatorView(): View {
+        return indicatorView
+    }
+
+    /**
+     * Return the layer the selected tab background is drawn on, it must be added below the
+     * indicator layer with the same bounds.
+     */
+    fun getPillView(): View {
+        return pillView
+    }
+
+    /**
+     * Return the layer the dividers are drawn on, it must be added between the selected tab
+     * background and the indicator layer with the same bounds, so the indicator covers the
+     * dividers as before the layers.
+     */
+    fun getDividerView(): View {
+        return dividerView
+    }
+
+    /**
+     * Set the color of the background that moves behind the selected tab, 0 for none.
+     */
+    fun setPillColor(@ColorInt color: Int) {
+        pillColor = color
+        updatePill()
+    }
+
+    /**
+     * Set the corner radius of the selected tab background, a negative radius rounds the
+     * ends completely.
+     */
+    fun setPillCornerRadius(cornerRadius: Float) {
+        pillCornerRadius = cornerRadius
+        updatePill()
+    }
+
+    fun setPillMargins(horizontalMargin: Float, verticalMargin: Float) {
+        pillHorizontalMargin = horizontalMargin
+        pillVerticalMargin = verticalMargin
+        updatePill()
     }
 
     fun setIndicatorTopMargin(topMargin: Float) {
@@ -144,35 +430,64 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
 
     fun setTabTextSelectedBold(selectedBold: Boolean) {
         isTabTextSelectedBold = selectedBold
+        invalidateTabStates()
     }
 
     fun setDividerWidth(width: Float) {
         dividerWidth = width
+        dividerRenderer.setStrokeWidth(width)
+        dividerView.invalidate()
     }
 
     fun setDividerPadding(padding: Float) {
         dividerPadding = padding
+        dividerRenderer.invalidate()
+        dividerView.invalidate()
     }
 
     fun setDividerColor(color: Int) {
         tabPalette.setDividerColors(color)
+        paletteCache.invalidate()
+        dividerView.invalidate()
     }
 
     fun setShowTabTextScaleAnim(scaleAnim: Boolean) {
         showTabTextScaleAnim = scaleAnim
     }
 
-    fun setTabSelected(mIsTabSelected: Boolean) {
-        this.isTabSelected = mIsTabSelected
+    fun setTextScaleMode(@SlidingTabLayout.TextScaleMode mode: Int) {
+        textScaleMode = mode
     }
 
-    private fun mixColor(firstColor: Int, secondColor: Int, ratio: Float): Int {
-        return Color.argb(
-            (Color.alpha(firstColor) * ratio + Color.alpha(secondColor) * (1f - ratio)).toInt(),
-            (Color.red(firstColor) * ratio + Color.red(secondColor) * (1f - ratio)).toInt(),
-            (Color.green(firstColor) * ratio + Color.green(secondColor) * (1f - ratio)).toInt(),
-            (Color.blue(firstColor) * ratio + Color.blue(secondColor) * (1f - ratio)).toInt()
-        )
+    fun setTabTransition(transition: TabTransition) {
+        if (tabTransition !== transition) {
+            tabTransition = transition
+            invalidateTabStates()
+        }
+    }
+
+    /**
+     * Return whether the specified tab can draw a color fill, only canvas-drawn titles and
+     * [TabTextView]s can, other tabs blend the colors instead.
+     */
+    internal fun canDrawTextFill(index: Int): Boolean {
+        if (isCanvasMode()) {
+            return true
+        }
+        val view = getTabView(index) ?: return false
+        val text = getTextView(view)
+        return text is TabTextView && text.canDrawTabTextFill()
+    }
+
+    private fun isTextScaleTransform(): Boolean {
+        return textScaleMode == SlidingTabLayout.TEXT_SCALE_MODE_TRANSFORM && !isCanvasMode()
+    }
+
+    fun setTabSelected(mIsTabSelected: Boolean) {
+        if (this.isTabSelected != mIsTabSelected) {
+            this.isTabSelected = mIsTabSelected
+            scheduleStatePass()
+        }
     }
 
     /**
@@ -183,10 +498,23 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
      * @param showAnim Whether show animation
      */
     private fun setTabTextSize(index: Int, size: Float, showAnim: Boolean) {
-        if (index < 0 || index >= childCount) {
+        if (index < 0 || index >= getTabCount()) {
+            return
+        }
+        if (isCanvasMode()) {
+            setTitleTextSize(index, size, showAnim)
+            return
+        }
+        if (isTextScaleTransform()) {
+            setTabTextScale(index, size, showAnim)
             return
         }
         val text = getTextView(index)
+        if (text is TabTextView) {
+            setTabTextDrawScale(text, size, showAnim)
+            return
+        }
+        cancelTextAnimators(text)
         if (showAnim) {
             val animator = ValueAnimator.ofFloat(text.textSize, size)
             animator.duration = ANIMATION_DURATION.toLong()
@@ -199,12 +527,140 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
                     }
                 }
             })
-            animator.start()
+            startTextAnimator(text, animator)
         } else {
             text.setTextSize(TypedValue.COMPLEX_UNIT_PX, size)
         }
     }
 
+    /**
+     * Reach the specified position text size through the scaleX and scaleY properties of the
+     * TextView, the text keeps the normal size so neither the tab nor the strip is re-measured.
+     *
+     * @param index    The specified position
+     * @param size     The scaled pixel size
+     * @param showAnim Whether show animation
+     */
+    private fun setTabTextScale(index: Int, size: Float, showAnim: Boolean) {
+        val text = getTextView(index)
+        val scale = if (tabTextSize > 0) size / tabTextSize else 1f
+        cancelTextAnimators(text)
+        if (showAnim) {
+            text.animate()
+                .scaleX(scale)
+                .scaleY(scale)
+                .setDuration(ANIMATION_DURATION.toLong())
+                .start()
+        } else {
+            text.scaleX = scale
+            text.scaleY = scale
+        }
+    }
+
+    /**
+     * Reach the specified text size through the draw-time scale of a [TabTextView], the text
+     * keeps the normal size and its largest size is reserved, so nothing is re-measured.
+     *
+     * @param text     The tab text view
+     * @param size     The scaled pixel size
+     * @param showAnim Whether show animation
+     */
+    private fun setTabTextDrawScale(text: TabTextView, size: Float, showAnim: Boolean) {
+        val scale = if (tabTextSize > 0) size / tabTextSize else 1f
+        cancelTextAnimators(text)
+        if (showAnim) {
+            val animator = ValueAnimator.ofFloat(text.getTabTextScale(), scale)
+            animator.duration = ANIMATION_DURATION.toLong()
+            animator.addUpdateListener { animation ->
+                text.setTabTextScale(animation.animatedValue as Float)
+            }
+            startTextAnimator(text, animator)
+        } else {
+            text.setTabTextScale(scale)
+        }
+    }
+
+    /**
+     * Start an animator of the specified tab text. It is kept on the view, so the next animator
+     * and the recycling of the view cancel it before it touches the text again.
+     */
+    private fun startTextAnimator(text: TextView, animator: ValueAnimator) {
+        text.setTag(R.id.sliding_tab_text_animator, animator)
+        animator.start()
+    }
+
+    /**
+     * Cancel the animators of the specified tab text, the property animator and the one kept
+     * by [startTextAnimator].
+     */
+    private fun cancelTextAnimators(text: TextView) {
+        text.animate().cancel()
+        val animator = text.getTag(R.id.sliding_tab_text_animator) as ValueAnimator? ?: return
+        text.setTag(R.id.sliding_tab_text_animator, null)
+        animator.cancel()
+    }
+
+    /**
+     * Keep the specified TextView at the normal text size and reserve the width of the largest
+     * scale up front, so the neighbouring tabs do not shift while scaling.
+     *
+     * @param text The tab text view
+     */
+    private fun reserveTabTextWidth(text: TextView) {
+        if (text.textSize != tabTextSize) {
+            text.setTextSize(TypedValue.COMPLEX_UNIT_PX, tabTextSize)
+        }
+        val maxScale = if (tabTextSize > 0) max(1f, selectedTabTextSize / tabTextSize) else 1f
+        val textWidth = Layout.getDesiredWidth(text.text, text.paint) * maxScale
+        // Keep the minimum width of the layout, a recycled tab gets it back.
+        if (text.getTag(R.id.sliding_tab_text_min_width) == null) {
+            text.setTag(R.id.sliding_tab_text_min_width, TextViewCompat.getMinWidth(text))
+        }
+        text.minWidth =
+            ceil(textWidth).toInt() + text.compoundPaddingLeft + text.compoundPaddingRight
+    }
+
+    /**
+     * Set the specified position text size of a canvas-drawn title. Only the drawing scale
+     * changes, the width of the title is reserved for its largest size.
+     */
+    private fun setTitleTextSize(index: Int, size: Float, showAnim: Boolean) {
+        if (showAnim) {
+            val animator = ValueAnimator.ofFloat(titleRenderer.getTextSize(index), size)
+            animator.duration = ANIMATION_DURATION.toLong()
+            animator.addUpdateListener { animation ->
+                if (index < titleRenderer.getCount()) {
+                    titleRenderer.setTextSize(index, animation.animatedValue as Float)
+                    invalidateTab(index)
+                }
+            }
+            animator.start()
+        } else {
+            titleRenderer.setTextSize(index, size)
+            invalidateTab(index)
+        }
+    }
+
+    /**
+     * Invalidate only the bounds of the specified tab. While a state pass runs, the bounds are
+     * collected and invalidated as one union when the pass ends.
+     *
+     * @param index The specified position.
+     */
+    @Suppress("DEPRECATION")
+    private fun invalidateTab(index: Int) {
+        if (index < 0 || index >= getTabCount()) {
+            return
+        }
+        val left = floor(getTabLeft(index)).toInt()
+        val right = ceil(getTabRight(index)).toInt()
+        if (collectingDirtyRegion) {
+            dirtyRect.union(left, 0, right, height)
+        } else {
+            invalidate(left, 0, right, height)
+        }
+    }
+
     /**
      * Changes the selection state of the tab view.
      *
@@ -212,7 +668,7 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
      * @param selected true if the view must be selected, false otherwise
      */
     private fun setTabTextSelected(index: Int, selected: Boolean) {
-        if (index < 0 || index >= childCount) {
+        if (index < 0 || index >= getTabCount() || isCanvasMode()) {
             return
         }
         val text = getTextView(index)
@@ -226,334 +682,1567 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
      * @param color A color value in the form 0xAARRGGBB.
      */
     private fun setTabTextColor(index: Int, @ColorInt color: Int) {
-        if (index < 0 || index >= childCount) {
+        if (index < 0 || index >= getTabCount()) {
             return
         }
-        getTextView(index).setTextColor(color)
+        if (isCanvasMode()) {
+            titleRenderer.setTextColor(index, color)
+            invalidateTab(index)
+            return
+        }
+        val layerPaint = if (index < scrollLayerPaints.size) scrollLayerPaints[index] else null
+        if (layerPaint != null) {
+            // Only the paint the layer is composited with changes, the layer is not redrawn.
+            layerPaint.colorFilter = getColorFilter(color)
+            ViewCompat.setLayerPaint(getTextView(index), layerPaint)
+            return
+        }
+        applyTextColor(getTextView(index), color)
     }
 
     /**
-     * Set the specified position text typeface style.
-     *
-     * @param index The specified position.
-     * @param bold  true if the text must be bold, false otherwise.
+     * Set the text color of a tab text view, as a draw-time property for a [TabTextView].
      */
-    private fun setTabTextBold(index: Int, bold: Boolean) {
-        if (index < 0 || index >= childCount) {
-            return
+    private fun applyTextColor(text: TextView, @ColorInt color: Int) {
+        if (text is TabTextView) {
+            text.setTabTextColor(color)
+        } else {
+            text.setTextColor(color)
         }
-        val text = getTextView(index)
-        text.paint.isFakeBoldText = bold
     }
 
-    private fun onlySelectedTabBold(): Boolean {
-        return !isTabTextBold && isTabTextSelectedBold
+    /**
+     * Set whether the visible tab texts are drawn into hardware layers while the pager is
+     * dragging or settling.
+     */
+    fun setScrollLayersEnabled(enabled: Boolean) {
+        if (!enabled) {
+            releaseScrollLayers()
+        }
+        scrollLayersEnabled = enabled
     }
 
-    fun setTabText(titleTextSize: Float, @ColorInt defaultTabTextColor: Int) {
-        tabTextSize = titleTextSize
-        tabTextColor = defaultTabTextColor
-        for (i in 0 until childCount) {
-            if (i != selectedPosition) {
-                val text = getTextView(i)
-                text.setTextColor(tabTextColor)
-                text.setTextSize(TypedValue.COMPLEX_UNIT_PX, titleTextSize)
-                if (onlySelectedTabBold() && lastSelectedPosition != -1) {
-                    setTabTextBold(lastSelectedPosition, false)
-                }
-                text.invalidate()
-            } else {
-                if (onlySelectedTabBold() && lastSelectedPosition != -1) {
-                    setTabTextBold(lastSelectedPosition, true)
-                }
-            }
+    /**
+     * Notify the strip whether the pager is dragging or settling.
+     */
+    fun setPagerScrolling(scrolling: Boolean) {
+        if (scrolling) {
+            promoteScrollLayers()
+        } else {
+            releaseScrollLayers()
         }
     }
 
-    fun setTabSelectedText(selectedTabTextSize: Float, @ColorInt vararg colors: Int) {
-        this.selectedTabTextSize = selectedTabTextSize
-        if (showTabTextScaleAnim) {
-            showTabTextScaleAnim = this.selectedTabTextSize != tabTextSize
+    /**
+     * Draw the text of every visible tab once into a hardware layer in opaque white, its color
+     * is applied by the color filter of the layer paint from now on. The color filter tints the
+     * whole view, so only [TabTextView]s without a background and compound drawables get a
+     * layer. Their white is set on the draw paint, other tabs keep blending their colors.
+     */
+    private fun promoteScrollLayers() {
+        val count = getTabCount()
+        if (!scrollLayersEnabled || isCanvasMode() || scrollLayerPaints.isNotEmpty() || count == 0) {
+            return
         }
-        customTabPalette = null
-        tabPalette.setTextColors(*colors)
-        this.invalidate()
-        for (i in 0 until childCount) {
-            if (i == selectedPosition) {
-                val text = getTextView(i)
-                text.setTextColor(colors[selectedPosition % colors.size])
-                text.setTextSize(TypedValue.COMPLEX_UNIT_PX, selectedTabTextSize)
-                if (onlySelectedTabBold() && lastSelectedPosition != -1) {
-                    setTabTextBold(lastSelectedPosition, true)
-                }
-                text.invalidate()
-            } else {
-                if (onlySelectedTabBold() && lastSelectedPosition != -1) {
-                    setTabTextBold(lastSelectedPosition, false)
-                }
+        // Virtualized views are recycled while the strip scrolls, they would take the layer
+        // of another tab along.
+        if (isVirtual()) {
+            return
+        }
+        // A layer paint has one color, it can not draw a fill, and a discrete transition does
+        // not change any color while scrolling.
+        if (tabTransition === TabTransition.FILL || tabTransition === TabTransition.DISCRETE) {
+            return
+        }
+        if (!getLocalVisibleRect(visibleRect)) {
+            return
+        }
+        scrollLayerPaints = arrayOfNulls(count)
+        for (i in 0 until count) {
+            if (getTabRight(i) < visibleRect.left || getTabLeft(i) > visibleRect.right) {
+                continue
             }
+            val textView = getTextView(i)
+            if (textView !is TabTextView || textView.background != null
+                || !textView.canDrawTabTextFill()
+            ) {
+                continue
+            }
+            val layerPaint = Paint()
+            layerPaint.colorFilter = getColorFilter(textView.getTabTextColor())
+            textView.setTabTextColor(Color.WHITE)
+            textView.setLayerType(View.LAYER_TYPE_HARDWARE, layerPaint)
+            scrollLayerPaints[i] = layerPaint
         }
     }
 
-    fun setTabTextBold(tabTextBold: Boolean) {
-        isTabTextBold = tabTextBold
+    private fun releaseScrollLayers() {
+        val layerPaints = scrollLayerPaints
+        if (layerPaints.isEmpty()) {
+            return
+        }
+        scrollLayerPaints = arrayOfNulls(0)
+        for (i in layerPaints.indices) {
+            if (layerPaints[i] == null || i >= getTabCount()) {
+                continue
+            }
+            val textView = getTextView(i)
+            textView.setLayerType(View.LAYER_TYPE_NONE, null)
+            if (i < appliedStyles.size) {
+                applyTextColor(textView, appliedStyles[i].textColor)
+            }
+        }
+        invalidateTabStates()
     }
 
-    fun getSelectedPosition(): Int {
-        return selectedPosition
+    /**
+     * Return the color filter for the specified color, shared by the scroll layers and the icon
+     * tints. The colors of a swipe come from the precomputed palette tables, so only a bounded
+     * number of filters is ever created.
+     */
+    private fun getColorFilter(@ColorInt color: Int): PorterDuffColorFilter {
+        var filter = colorFilters.get(color)
+        if (filter == null) {
+            if (colorFilters.size() >= MAX_COLOR_FILTERS) {
+                colorFilters.clear()
+            }
+            filter = PorterDuffColorFilter(color, PorterDuff.Mode.SRC_IN)
+            colorFilters.put(color, filter)
+        }
+        return filter
     }
 
-    fun setSelectedPosition(position: Int) {
-        this.selectedPosition = position
-        this.invalidate()
+    /**
+     * Set whether the tab icons are tinted with the text color of their tab, following the
+     * swipe. Icons of tab views must be bound through [setTabIcon], the bound ones are swapped
+     * for tintable copies or cleared of their tint right away.
+     */
+    fun setIconTint(tint: Boolean) {
+        if (iconTint == tint) {
+            return
+        }
+        iconTint = tint
+        for (i in 0 until childCount) {
+            val iconView = getChildAt(i).findViewById<ImageView>(R.id.sliding_tab_icon) ?: continue
+            val icon = iconView.drawable ?: continue
+            val tinted = iconView.getTag(R.id.sliding_tab_icon_tinted) === icon
+            if (tint && !tinted) {
+                setTabIcon(iconView, icon)
+            } else if (!tint && tinted) {
+                // The copy is private to the tab, clearing its filter touches no other user.
+                icon.colorFilter = null
+                iconView.setTag(R.id.sliding_tab_icon_tinted, null)
+            }
+        }
+        invalidateTabStates()
+        invalidate()
     }
 
-    fun setFirstPagePosition(position: Int, positionOffset: Float) {
-        firstPagePosition = position
-        firstPagePositionOffset = positionOffset
-        this.invalidate()
+    fun isIconTint(): Boolean {
+        return iconTint
     }
 
-    fun setCustomTabPalette(tabPalette: TabPalette) {
-        customTabPalette = tabPalette
-        this.invalidate()
+    /**
+     * Return a drawable for the tab icon whose color filter can change without affecting any
+     * other user of the icon. It is created once when the tab is bound, from the constant
+     * state of the icon, so the bitmap stays shared and a swipe never mutates or allocates.
+     */
+    private fun prepareTintedIcon(icon: Drawable): Drawable {
+        val constantState = icon.constantState ?: return icon.mutate()
+        return constantState.newDrawable(resources).mutate()
     }
 
-    fun setDividerColors(@ColorInt vararg colors: Int) {
-        customTabPalette = null
-        tabPalette.setDividerColors(*colors)
-        this.invalidate()
+    /**
+     * Set the icon of a tab view, as a tintable copy while the icons are tinted. Only the icons
+     * set here are ever tinted.
+     */
+    fun setTabIcon(iconView: ImageView, icon: Drawable) {
+        if (iconTint) {
+            val tinted = prepareTintedIcon(icon)
+            iconView.setImageDrawable(tinted)
+            iconView.setTag(R.id.sliding_tab_icon_tinted, tinted)
+        } else {
+            iconView.setImageDrawable(icon)
+            iconView.setTag(R.id.sliding_tab_icon_tinted, null)
+        }
     }
 
     /**
-     * Get the TextView in the specified location.
+     * Tint the icon of the specified position tab view, canvas-drawn icons are tinted when
+     * drawn.
      *
-     * @param index
-     * @return
+     * @param index The specified position.
+     * @param color A color value in the form 0xAARRGGBB.
      */
-    private fun getTextView(index: Int): TextView {
-        var view = getChildAt(index)
-        if (view !is TextView) {
-            view = view.findViewById(R.id.sliding_tab_text)
+    private fun setTabIconTint(index: Int, @ColorInt color: Int) {
+        if (!iconTint) {
+            return
+        }
+        val tabView = getTabView(index) ?: return
+        val iconView = tabView.findViewById<ImageView>(R.id.sliding_tab_icon) ?: return
+        val icon = iconView.drawable ?: return
+        if (iconView.getTag(R.id.sliding_tab_icon_tinted) === icon) {
+            icon.colorFilter = getColorFilter(color)
         }
-        return view as TextView
-    }
-
-    fun setOnColorChangeListener(listener: OnColorChangeListener?) {
-        onColorChangeListener = listener
     }
 
-    override fun onDraw(canvas: Canvas) {
-        val childCount = childCount
-        if (childCount == 0) {
+    /**
+     * Set the filled start of the specified position text.
+     *
+     * @param index    The specified position.
+     * @param color    A color value in the form 0xAARRGGBB.
+     * @param fraction The filled fraction of the text width, 0 for no fill.
+     */
+    private fun setTabTextFill(index: Int, @ColorInt color: Int, fraction: Float) {
+        if (index < 0 || index >= getTabCount()) {
+            return
+        }
+        if (isCanvasMode()) {
+            titleRenderer.setTextFill(index, color, fraction)
+            invalidateTab(index)
             return
         }
-        val tabPalette = customTabPalette ?: tabPalette
-        if (lastSelectedPosition != selectedPosition) {
+        val text = getTextView(index)
+        if (text is TabTextView) {
+            text.setTabTextFill(color, fraction)
+        }
+    }
 
-            // Set the selected tab text size.
-            if (tabTextSize != selectedTabTextSize) {
-                setTabTextSize(selectedPosition, selectedTabTextSize, showTabTextScaleAnim)
-                setTabTextSize(lastSelectedPosition, tabTextSize, showTabTextScaleAnim)
-            }
+    /**
+     * Set the specified position text typeface style.
+     *
+     * @param index The specified position.
+     * @param bold  true if the text must be bold, false otherwise.
+     */
+    private fun setTabTextBold(index: Int, bold: Boolean) {
+        if (index < 0 || index >= getTabCount()) {
+            return
+        }
+        if (isCanvasMode()) {
+            titleRenderer.setTextBold(index, bold)
+            invalidateTab(index)
+            return
+        }
+        val text = getTextView(index)
+        if (text is TabTextView) {
+            text.setTabTextBold(bold)
+        } else {
+            text.paint.isFakeBoldText = bold
+        }
+    }
+
+    private fun onlySelectedTabBold(): Boolean {
+        return !isTabTextBold && isTabTextSelectedBold
+    }
+
+    fun setTabText(titleTextSize: Float, @ColorInt defaultTabTextColor: Int) {
+        tabTextSize = titleTextSize
+        tabTextColor = defaultTabTextColor
+        paletteCache.setNormalTextColor(defaultTabTextColor)
+        titleRenderer.setTextSizes(tabTextSize, selectedTabTextSize)
+        reserveTabTextWidths()
+        invalidateTabStates()
+    }
+
+    fun setTabSelectedText(selectedTabTextSize: Float, @ColorInt vararg colors: Int) {
+        this.selectedTabTextSize = selectedTabTextSize
+        if (showTabTextScaleAnim) {
+            showTabTextScaleAnim = this.selectedTabTextSize != tabTextSize
+        }
+        titleRenderer.setTextSizes(tabTextSize, selectedTabTextSize)
+        reserveTabTextWidths()
+        customTabPalette = null
+        tabPalette.setTextColors(*colors)
+        paletteCache.invalidate()
+        updateIndicator()
+        invalidateTabStates()
+    }
+
+    private fun reserveTabTextWidths() {
+        if (isCanvasMode()) {
+            return
+        }
+        for (i in 0 until getTabCount()) {
+            val view = getTabView(i) ?: continue
+            reserveTabText(getTextView(view))
+        }
+        if (isVirtual()) {
+            virtualWidthsValid = false
+            requestLayout()
+        }
+    }
+
+    private fun reserveTabText(text: TextView) {
+        if (isTextScaleTransform()) {
+            reserveTabTextWidth(text)
+        } else {
+            reserveTabTextDrawScale(text)
+        }
+    }
+
+    /**
+     * Keep the specified [TabTextView] at the normal text size and let it reserve the size of
+     * the largest draw-time scale. Other TextViews are resized as before.
+     *
+     * @param text The tab text view
+     */
+    private fun reserveTabTextDrawScale(text: TextView) {
+        if (text !is TabTextView) {
+            return
+        }
+        if (text.textSize != tabTextSize) {
+            text.setTextSize(TypedValue.COMPLEX_UNIT_PX, tabTextSize)
+        }
+        text.setMaxTabTextScale(
+            if (tabTextSize > 0) max(1f, selectedTabTextSize / tabTextSize) else 1f
+        )
+    }
 
-            // Set the selected tab to bold.
-            if (onlySelectedTabBold()) {
-                setTabTextBold(selectedPosition, true)
-                setTabTextBold(lastSelectedPosition, false)
+    fun setTabTextBold(tabTextBold: Boolean) {
+        isTabTextBold = tabTextBold
+        titleRenderer.setTypeface(if (tabTextBold) Typeface.DEFAULT_BOLD else Typeface.DEFAULT)
+        invalidateTabStates()
+    }
+
+    fun getSelectedPosition(): Int {
+        return selectedPosition
+    }
+
+    fun setSelectedPosition(position: Int) {
+        if (isCanvasMode() && position != selectedPosition) {
+            titleAccessibilityHelper.invalidateVirtualView(selectedPosition)
+            titleAccessibilityHelper.invalidateVirtualView(position)
+        }
+        this.selectedPosition = position
+        scheduleStatePass()
+    }
+
+    fun setFirstPagePosition(position: Int, positionOffset: Float) {
+        firstPagePosition = position
+        firstPagePositionOffset = positionOffset
+        // The indicator moves on its own layer and the tab states are applied before the next
+        // frame, nothing the strip paints itself depends on the swipe. The pass also dispatches
+        // the color, so the callback runs at most once per frame and never during draw.
+        updateIndicator()
+        scheduleStatePass()
+    }
+
+    fun setCustomTabPalette(tabPalette: TabPalette) {
+        customTabPalette = tabPalette
+        paletteCache.invalidate()
+        updateIndicator()
+        invalidateTabStates()
+        this.invalidate()
+        dividerView.invalidate()
+    }
+
+    /**
+     * Blend the swipe colors in linear light instead of sRGB, which avoids the dark middle of
+     * a blend between saturated colors. Only the precomputed tables are affected.
+     */
+    fun setLinearColorBlending(linear: Boolean) {
+        paletteCache.setLinearBlending(linear)
+        invalidateTabStates()
+    }
+
+    fun setDividerColors(@ColorInt vararg colors: Int) {
+        customTabPalette = null
+        tabPalette.setDividerColors(*colors)
+        paletteCache.invalidate()
+        dividerView.invalidate()
+    }
+
+    /**
+     * Get the TextView in the specified location.
+     *
+     * @param index
+     * @return
+     */
+    private fun getTextView(index: Int): TextView {
+        return getTextView(if (isVirtual()) virtualViews.get(index) else getChildAt(index))
+    }
+
+    private fun getTextView(tabView: View): TextView {
+        var view = tabView
+        if (view !is TextView) {
+            view = view.findViewById(R.id.sliding_tab_text)
+        }
+        return view as TextView
+    }
+
+    fun setOnColorChangeListener(listener: OnColorChangeListener?) {
+        onColorChangeListener = listener
+        hasDispatchedColor = false
+        scheduleStatePass()
+    }
+
+    /**
+     * Set the step every color channel is rounded to before the color change is dispatched,
+     * colors that only differ within a step do not cause another callback.
+     *
+     * @param step The quantization step, 1 or less to dispatch the exact color.
+     */
+    fun setColorChangeQuantizeStep(step: Int) {
+        colorQuantizeStep = step
+        hasDispatchedColor = false
+    }
+
+    /**
+     * Register a callback to be invoked when a tab is clicked, whether it is a child view or a
+     * canvas-drawn title.
+     */
+    fun setOnTabClickListener(listener: OnTabClickListener?) {
+        onTabClickListener = listener
+    }
+
+    /**
+     * Add a tab view, its clicks are reported through [setOnTabClickListener].
+     */
+    fun addTabView(view: View) {
+        addTabView(view, childCount)
+    }
+
+    /**
+     * Insert a tab view at the specified position, the tabs after it move one position on.
+     */
+    fun addTabView(view: View, index: Int) {
+        // The scroll layers are indexed by position.
+        releaseScrollLayers()
+        addView(view, index)
+        prepareTabView(view)
+        invalidateTabStates()
+    }
+
+    /**
+     * Remove the tab views of the specified range, the tabs after it move back.
+     */
+    fun removeTabViews(start: Int, count: Int) {
+        releaseScrollLayers()
+        val removed = List(count) { getChildAt(start + it) }
+        removeViews(start, count)
+        removed.forEach { recycleTabView(it) }
+        invalidateTabStates()
+    }
+
+    /**
+     * Set the pool the removed tab views are put into.
+     *
+     * @param pool     The pool, or null to drop the removed tab views.
+     * @param viewType The tab layout resource the tab views are inflated from.
+     */
+    fun setTabViewPool(pool: TabViewPool?, viewType: Int) {
+        tabViewPool = pool
+        tabViewType = viewType
+    }
+
+    /**
+     * Put a removed tab view into the pool, without what this strip set on it, another strip
+     * may take it.
+     */
+    private fun recycleTabView(view: View) {
+        val pool = tabViewPool ?: return
+        val text = getTextView(view)
+        cancelTextAnimators(text)
+        text.removeOnLayoutChangeListener(textPivotUpdater)
+        text.scaleX = 1f
+        text.scaleY = 1f
+        val minWidth = text.getTag(R.id.sliding_tab_text_min_width)
+        if (minWidth is Int) {
+            text.minWidth = minWidth
+            text.setTag(R.id.sliding_tab_text_min_width, null)
+        }
+        if (text is TabTextView) {
+            text.setTabTextScale(1f)
+            text.setMaxTabTextScale(1f)
+            text.setTabTextFill(0, 0f)
+            text.setTabTextBold(false)
+        }
+        val iconView = view.findViewById<ImageView>(R.id.sliding_tab_icon)
+        if (iconView != null) {
+            // A tinted copy belongs to this strip, the next binding sets the icon again.
+            iconView.setImageDrawable(null)
+            iconView.setTag(R.id.sliding_tab_icon_tinted, null)
+            iconView.visibility = VISIBLE
+        }
+        view.setOnClickListener(null)
+        pool.putRecycledView(tabViewType, view)
+    }
+
+    /**
+     * Move a tab view from one position to another.
+     */
+    fun moveTabView(from: Int, to: Int) {
+        if (from == to) {
+            return
+        }
+        releaseScrollLayers()
+        val view = getChildAt(from)
+        removeViewAt(from)
+        addView(view, to)
+        invalidateTabStates()
+    }
+
+    /**
+     * Keep the selected and the first page position on the same tab while tabs are inserted,
+     * removed or moved around it.
+     *
+     * @param mapper Maps a position before the change to the position after it.
+     */
+    fun remapPositions(mapper: (Int) -> Int) {
+        selectedPosition = mapper(selectedPosition)
+        firstPagePosition = mapper(firstPagePosition)
+        lastFirstPagePosition = firstPagePosition
+        lastSelectedPosition = -1
+        invalidateTabStates()
+    }
+
+    /**
+     * Notify the strip that the title or the icon of the specified tab view was rebound, its
+     * text size is reserved and its state applied again.
+     */
+    fun notifyTabViewChanged(index: Int) {
+        val view = getTabView(index) ?: return
+        prepareTabView(view)
+        invalidateTabStates()
+    }
+
+    /**
+     * Prepare a tab view for this strip, a recycled view is prepared again when rebound.
+     */
+    private fun prepareTabView(view: View) {
+        view.setOnClickListener(tabViewClickListener)
+        val text = getTextView(view)
+        if (isTextScaleTransform()) {
+            text.removeOnLayoutChangeListener(textPivotUpdater)
+            text.addOnLayoutChangeListener(textPivotUpdater)
+        }
+        reserveTabText(text)
+    }
+
+    /**
+     * Set the titles drawn in [SlidingTabLayout.RENDER_MODE_CANVAS], no child view is created.
+     */
+    fun setTitles(titles: List<CharSequence?>, layouts: Array<StaticLayout?>? = null) {
+        titleRenderer.setTitles(titles, tabTextColor, false, layouts)
+        titleLefts = FloatArray(titles.size)
+        titleRights = FloatArray(titles.size)
+        invalidateTabStates()
+        titleAccessibilityHelper.invalidateRoot()
+        requestLayout()
+        invalidate()
+    }
+
+    /**
+     * Return a copy of the paint the canvas-drawn titles are laid out with, to build their
+     * layouts off the main thread with [TabTitleRenderer.buildLayouts].
+     */
+    fun createTitlePaint(): TextPaint {
+        return titleRenderer.createLayoutPaint()
+    }
+
+    /**
+     * Set the icons drawn before the titles in [SlidingTabLayout.RENDER_MODE_CANVAS]. They are
+     * packed into one atlas bitmap at the displayed size.
+     *
+     * @param icons The icon of every title, null for a title without icon.
+     */
+    fun setIcons(icons: List<Drawable?>) {
+        iconAtlas.build(icons, iconSize)
+        requestLayout()
+        invalidate()
+    }
+
+    /**
+     * Set the size canvas-drawn icons are displayed at, 0 for their largest intrinsic size.
+     * Takes effect the next time the icons are set.
+     */
+    fun setIconSize(size: Int) {
+        iconSize = size
+    }
+
+    /**
+     * Set the space between a canvas-drawn icon and its title.
+     */
+    fun setIconPadding(padding: Float) {
+        iconPadding = padding
+        requestLayout()
+    }
+
+    /**
+     * Return the width the icon of the specified canvas-drawn title takes, with its padding.
+     */
+    private fun getIconWidth(index: Int): Float {
+        return if (iconAtlas.hasIcon(index)) iconAtlas.getIconSize() + iconPadding else 0f
+    }
+
+    /**
+     * Return the count of tabs, either child views, virtualized tabs or canvas-drawn titles.
+     */
+    fun getTabCount(): Int {
+        return when {
+            isCanvasMode() -> titleRenderer.getCount()
+            isVirtual() -> virtualCount
+            else -> childCount
+        }
+    }
+
+    fun getTabLeft(index: Int): Float {
+        return getGeometry().getTabLeft(index)
+    }
+
+    fun getTabRight(index: Int): Float {
+        return getGeometry().getTabRight(index)
+    }
+
+    fun getTabWidth(index: Int): Float {
+        return getTabRight(index) - getTabLeft(index)
+    }
+
+    /**
+     * Return the width a canvas-drawn title needs, including the tab paddings.
+     */
+    private fun getTitleWidth(index: Int, count: Int): Float {
+        var width = titleRenderer.getReservedWidth(index) + getIconWidth(index) +
+                tabPaddingStart + tabPaddingEnd
+        if (index == 0) {
+            width += leftPadding
+        }
+        if (index == count - 1) {
+            width += rightPadding
+        }
+        return width
+    }
+
+    override fun onMeasure(widthMeasureSpec: Int, heightMeasureSpec: Int) {
+        if (isVirtual()) {
+            measureVirtualViews(widthMeasureSpec, heightMeasureSpec)
+            return
+        }
+        if (!isCanvasMode()) {
+            measureTabViews(widthMeasureSpec, heightMeasureSpec)
+            return
+        }
+        val count = titleRenderer.getCount()
+        var width = (paddingLeft + paddingRight).toFloat()
+        for (i in 0 until count) {
+            width += getTitleWidth(i, count)
+        }
+        val height = max(titleRenderer.getReservedHeight(), iconAtlas.getIconSize().toFloat()) +
+                tabPaddingTop + tabPaddingBottom
+        setMeasuredDimension(
+            resolveSize(ceil(width).toInt(), widthMeasureSpec),
+            resolveSize(ceil(height).toInt(), heightMeasureSpec)
+        )
+    }
+
+    /**
+     * Measure every tab view exactly once. The tabs keep their measure specs from pass to pass,
+     * so a tab that did not request a layout is served from its measure cache. Scrollable tabs
+     * are never limited in width, they get the same unspecified width whatever the strip gets,
+     * so the fill viewport pass of the scroll view only resolves the strip width again.
+     */
+    private fun measureTabViews(widthMeasureSpec: Int, heightMeasureSpec: Int) {
+        val count = childCount
+        var visibleCount = 0
+        for (i in 0 until count) {
+            if (getChildAt(i).visibility != GONE) {
+                visibleCount++
             }
-            if (isTabSelected) {
-                setTabTextColor(selectedPosition, tabPalette.getTextColor(selectedPosition))
-                setTabTextColor(lastSelectedPosition, tabTextColor)
-                setTabTextSelected(selectedPosition, true)
-                setTabTextSelected(lastSelectedPosition, false)
+        }
+        val horizontalPadding = paddingLeft + paddingRight
+        val verticalPadding = paddingTop + paddingBottom
+        // In the fixed mode the exact width is split into equal parts, the remainder pixels
+        // go to the first tabs.
+        val splitWidth = tabMode == SlidingTabLayout.MODE_FIXED
+                && MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY
+                && visibleCount > 0
+        val availableWidth = max(0, MeasureSpec.getSize(widthMeasureSpec) - horizontalPadding)
+        var remainder = if (splitWidth) availableWidth % visibleCount else 0
+        val unspecifiedWidthMeasureSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED)
+        var width = 0
+        var height = 0
+        var childState = 0
+        for (i in 0 until count) {
+            val child = getChildAt(i)
+            if (child.visibility == GONE) {
+                continue
+            }
+            val lp = child.layoutParams as LayoutParams
+            val horizontalMargin = lp.leftMargin + lp.rightMargin
+            val childWidthMeasureSpec = if (splitWidth) {
+                var tabWidth = availableWidth / visibleCount
+                if (remainder > 0) {
+                    tabWidth++
+                    remainder--
+                }
+                MeasureSpec.makeMeasureSpec(max(0, tabWidth - horizontalMargin), MeasureSpec.EXACTLY)
+            } else if (tabMode == SlidingTabLayout.MODE_SCROLLABLE) {
+                getChildMeasureSpec(unspecifiedWidthMeasureSpec, horizontalMargin, lp.width)
+            } else {
+                getChildMeasureSpec(widthMeasureSpec, horizontalPadding + horizontalMargin, lp.width)
             }
-            lastSelectedPosition = selectedPosition
+            val childHeightMeasureSpec = getChildMeasureSpec(
+                heightMeasureSpec,
+                verticalPadding + lp.topMargin + lp.bottomMargin,
+                lp.height
+            )
+            child.measure(childWidthMeasureSpec, childHeightMeasureSpec)
+            width += child.measuredWidth + horizontalMargin
+            height = max(height, child.measuredHeight + lp.topMargin + lp.bottomMargin)
+            childState = combineMeasuredStates(childState, child.measuredState)
+        }
+        width = max(width + horizontalPadding, suggestedMinimumWidth)
+        height = max(height + verticalPadding, suggestedMinimumHeight)
+        setMeasuredDimension(
+            resolveSizeAndState(width, widthMeasureSpec, childState),
+            resolveSizeAndState(
+                height,
+                heightMeasureSpec,
+                childState shl MEASURED_HEIGHT_STATE_SHIFT
+            )
+        )
+    }
+
+    /**
+     * Measure the widths of all virtualized tabs once, then only the bound views. The strip is
+     * as wide as all tabs together.
+     */
+    private fun measureVirtualViews(widthMeasureSpec: Int, heightMeasureSpec: Int) {
+        virtualHeightMeasureSpec = heightMeasureSpec
+        if (!virtualWidthsValid) {
+            measureVirtualWidths()
         }
+        for (i in 0 until virtualViews.size()) {
+            measureVirtualView(virtualViews.keyAt(i), virtualViews.valueAt(i))
+        }
+        val width = ceil(virtualLefts[virtualCount]).toInt() + paddingLeft + paddingRight
+        val height = virtualHeight + paddingTop + paddingBottom
+        setMeasuredDimension(
+            resolveSize(max(width, suggestedMinimumWidth), widthMeasureSpec),
+            resolveSize(max(height, suggestedMinimumHeight), heightMeasureSpec)
+        )
+    }
 
-        // Change the text color when slipping page.
-        val secondPagePosition = firstPagePosition + 1
-        if (!isTabSelected) {
-            setTabTextColor(
-                firstPagePosition,
-                mixColor(
-                    tabTextColor,
-                    tabPalette.getTextColor(firstPagePosition),
-                    firstPagePositionOffset
-                )
+    /**
+     * Measure the widths of all virtualized tabs and keep the lefts as a prefix sum, the strip
+     * width, the geometry and the scroll math never need the tab views. One tab is bound and
+     * measured as the template, every other tab is as wide as the template apart from its title,
+     * whose width comes from the text paint of the template. Only the edge tabs add the left
+     * and right padding of the widget.
+     */
+    private fun measureVirtualWidths() {
+        val binder = tabViewBinder ?: return
+        val count = virtualCount
+        if (virtualLefts.size != count + 1) {
+            virtualLefts = FloatArray(count + 1)
+        }
+        if (count == 0) {
+            virtualHeight = 0
+            virtualWidthsValid = true
+            return
+        }
+        // A tab between the edge tabs has no widget padding.
+        val templateIndex = if (count > 2) 1 else 0
+        val scratch = if (recycledViews.isEmpty()) null else recycledViews.removeAt(recycledViews.size - 1)
+        val template = binder.bindTabView(scratch, templateIndex)
+        prepareTabView(template)
+        val text = getTextView(template)
+        if (text !is TabTextView && !isTextScaleTransform()) {
+            // A plain TextView grows to the selected size, reserve it up front.
+            text.setTextSize(TypedValue.COMPLEX_UNIT_PX, max(tabTextSize, selectedTabTextSize))
+        }
+        val lp = template.layoutParams as LayoutParams
+        template.measure(
+            MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED),
+            getChildMeasureSpec(
+                virtualHeightMeasureSpec,
+                paddingTop + paddingBottom + lp.topMargin + lp.bottomMargin,
+                lp.height
             )
-            if (firstPagePositionOffset > 0f && firstPagePosition < getChildCount() - 1) {
-                setTabTextColor(
-                    secondPagePosition,
-                    mixColor(
-                        tabPalette.getTextColor(secondPagePosition),
-                        tabTextColor,
-                        firstPagePositionOffset
-                    )
-                )
+        )
+        // The reserved title width is the width at the largest text size.
+        val textScale = if (text.textSize > 0) {
+            max(1f, max(tabTextSize, selectedTabTextSize) / text.textSize)
+        } else {
+            1f
+        }
+        val paint = text.paint
+        val leftEdge = if (leftPadding > 0) leftPadding.toInt() else 0
+        val rightEdge = if (rightPadding > 0) rightPadding.toInt() else 0
+        var chromeWidth = template.measuredWidth -
+                getVirtualTitleWidth(virtualTitles[templateIndex], paint, textScale)
+        if (templateIndex == 0) {
+            chromeWidth -= leftEdge
+        }
+        if (templateIndex == count - 1) {
+            chromeWidth -= rightEdge
+        }
+        for (i in 0 until count) {
+            var width = chromeWidth + getVirtualTitleWidth(virtualTitles[i], paint, textScale)
+            if (i == 0) {
+                width += leftEdge
+            }
+            if (i == count - 1) {
+                width += rightEdge
             }
+            width = max(width, template.minimumWidth)
+            virtualLefts[i + 1] = virtualLefts[i] + width + lp.leftMargin + lp.rightMargin
+        }
+        recycledViews.add(template)
+        virtualHeight = template.measuredHeight + lp.topMargin + lp.bottomMargin
+        virtualWidthsValid = true
+    }
+
+    private fun getVirtualTitleWidth(title: CharSequence?, paint: TextPaint, scale: Float): Int {
+        if (title.isNullOrEmpty()) {
+            return 0
         }
+        return ceil(ceil(Layout.getDesiredWidth(title, paint)) * scale).toInt()
+    }
+
+    /**
+     * Measure a bound virtualized tab view exactly to its cached width.
+     */
+    private fun measureVirtualView(index: Int, view: View) {
+        val lp = view.layoutParams as LayoutParams
+        val width = (virtualLefts[index + 1] - virtualLefts[index]).toInt() -
+                lp.leftMargin - lp.rightMargin
+        view.measure(
+            MeasureSpec.makeMeasureSpec(max(0, width), MeasureSpec.EXACTLY),
+            getChildMeasureSpec(
+                virtualHeightMeasureSpec,
+                paddingTop + paddingBottom + lp.topMargin + lp.bottomMargin,
+                lp.height
+            )
+        )
+    }
 
-        // draw divider
+    override fun onLayout(changed: Boolean, l: Int, t: Int, r: Int, b: Int) {
+        if (isVirtual()) {
+            bindVirtualViews()
+        } else {
+            layoutTabViews(b - t)
+        }
+        layoutTitles(l, r)
+        geometryValid = false
+        updateIndicator()
         if (dividerWidth > 0) {
-            // If padding is 0, then the divider is half height of the parent control.
-            val dividerHeight =
-                if (dividerPadding == 0f) height / 2 else (height - 2 * dividerPadding).toInt()
-            for (i in 0 until childCount - 1) {
-                val childView = getChildAt(i)
-                dividerPaint.color = tabPalette.getDividerColor(i)
-                canvas.drawLine(
-                    childView.right.toFloat(), (height - dividerHeight).toFloat() / 2,
-                    childView.right.toFloat(), (height + dividerHeight).toFloat() / 2,
-                    dividerPaint
-                )
-            }
-        }
-
-        // draw indicator
-        if (indicatorHeight > 0) {
-            val firstPageTabView = getChildAt(firstPagePosition)
-            var firstPageTabLeft = firstPageTabView.left.toFloat()
-            var firstPageTabRight = firstPageTabView.right.toFloat()
-            // The first page.
-            if (firstPagePosition == 0 && leftPadding > 0) {
-                firstPageTabLeft += leftPadding
-            }
-            var indicatorRectFLeft = 0f
-            var indicatorRectFRight = 0f
-            var firstPageTextColor = tabPalette.getTextColor(firstPagePosition)
-
-            // Sliding the page.
-            if (firstPagePosition < getChildCount() - 1) {
-                val secondPageTabView = getChildAt(secondPagePosition)
-                val secondPageTextColor = tabPalette.getTextColor(secondPagePosition)
-                if (firstPageTextColor != secondPageTextColor) {
-                    firstPageTextColor =
-                        mixColor(secondPageTextColor, firstPageTextColor, firstPagePositionOffset)
-                }
-                var secondPageTabLeft = secondPageTabView.left.toFloat()
-                var secondPageTabRight = secondPageTabView.right.toFloat()
-                // Sliding to the last page.
-                if (secondPagePosition == getChildCount() - 1) {
-                    secondPageTabRight -= rightPadding
-                }
-                if (indicatorWidth != 0f) {
-                    val firstMiddle = (firstPageTabLeft + firstPageTabRight) / 2
-                    firstPageTabLeft = firstMiddle - indicatorWidth / 2
-                    firstPageTabRight = firstMiddle + indicatorWidth / 2
-                    val secondMiddle = (secondPageTabLeft + secondPageTabRight) / 2
-                    secondPageTabLeft = secondMiddle - indicatorWidth / 2
-                    secondPageTabRight = secondMiddle + indicatorWidth / 2
-                } else if (indicatorWidthRatio > 0 && indicatorWidthRatio < 1) {
-                    val firstMiddle = (firstPageTabLeft + firstPageTabRight) / 2
-                    firstPageTabLeft =
-                        firstMiddle - (firstPageTabRight - firstPageTabLeft) / 2 * indicatorWidthRatio
-                    firstPageTabRight =
-                        firstMiddle + (firstPageTabRight - firstPageTabLeft) / 2 * indicatorWidthRatio
-                    val secondMiddle = (secondPageTabLeft + secondPageTabRight) / 2
-                    secondPageTabLeft =
-                        secondMiddle - (secondPageTabRight - secondPageTabLeft) / 2 * indicatorWidthRatio
-                    secondPageTabRight =
-                        secondMiddle + (secondPageTabRight - secondPageTabLeft) / 2 * indicatorWidthRatio
-                }
-                if (!indicatorCreep) {
-                    indicatorRectFLeft =
-                        firstPageTabLeft + firstPagePositionOffset * (secondPageTabLeft - firstPageTabLeft)
-                    indicatorRectFRight =
-                        firstPageTabRight + firstPagePositionOffset * (secondPageTabRight - firstPageTabRight)
-                } else {
-                    indicatorRectFLeft = firstPageTabLeft * (1 - leftInterpolator.getInterpolation(
-                        firstPagePositionOffset
-                    )) + secondPageTabLeft * leftInterpolator.getInterpolation(
-                        firstPagePositionOffset
-                    )
-                    indicatorRectFRight =
-                        firstPageTabRight * (1 - rightInterpolator.getInterpolation(
-                            firstPagePositionOffset
-                        )) + secondPageTabRight * rightInterpolator.getInterpolation(
-                            firstPagePositionOffset
-                        )
-                }
-            } else if (firstPagePosition == getChildCount() - 1) {
-                // After selected the last page.
-                firstPageTabRight -= rightPadding
-                if (indicatorWidth != 0f) {
-                    val firstMiddle = (firstPageTabLeft + firstPageTabRight) / 2
-                    firstPageTabLeft = firstMiddle - indicatorWidth / 2
-                    firstPageTabRight = firstMiddle + indicatorWidth / 2
-                } else if (indicatorWidthRatio > 0 && indicatorWidthRatio < 1) {
-                    val firstMiddle = (firstPageTabLeft + firstPageTabRight) / 2
-                    firstPageTabLeft =
-                        firstMiddle - (firstPageTabRight - firstPageTabLeft) / 2 * indicatorWidthRatio
-                    firstPageTabRight =
-                        firstMiddle + (firstPageTabRight - firstPageTabLeft) / 2 * indicatorWidthRatio
+            dividerView.invalidate()
+        }
+    }
+
+    /**
+     * Bind the virtualized tabs within one viewport width on both sides of the viewport and
+     * place their views, the views of the tabs outside of that range are recycled.
+     */
+    private fun bindVirtualViews() {
+        val binder = tabViewBinder ?: return
+        val count = virtualCount
+        val margin = viewportRight - viewportLeft
+        val first = findVirtualTab((viewportLeft - margin - paddingLeft).toFloat())
+        val last = findVirtualTab((viewportRight + margin - paddingLeft).toFloat())
+        virtualBoundFirst = first
+        virtualBoundLast = last
+        for (i in virtualViews.size() - 1 downTo 0) {
+            val index = virtualViews.keyAt(i)
+            if (count == 0 || index < first || index > last) {
+                val view = virtualViews.valueAt(i)
+                virtualViews.removeAt(i)
+                cancelTextAnimators(getTextView(view))
+                removeViewInLayout(view)
+                recycledViews.add(view)
+            }
+        }
+        if (count == 0) {
+            return
+        }
+        var bound = false
+        for (index in first..last) {
+            var view = virtualViews.get(index)
+            if (view == null) {
+                if (!bound) {
+                    prepareTabStates()
+                    bound = true
                 }
-                indicatorRectFLeft = firstPageTabLeft
-                indicatorRectFRight = firstPageTabRight
-            }
-            val indicatorColor = if (indicatorColor == 0) firstPageTextColor else indicatorColor
-            indicatorPaint.color = indicatorColor
-            when (indicatorGravity) {
-                Gravity.TOP -> {
-                    indicatorRectF[indicatorRectFLeft, indicatorTopMargin, indicatorRectFRight] =
-                        indicatorTopMargin + indicatorHeight
+                val recycled =
+                    if (recycledViews.isEmpty()) null else recycledViews.removeAt(recycledViews.size - 1)
+                view = binder.bindTabView(recycled, index)
+                prepareTabView(view)
+                virtualViews.put(index, view)
+                // The rebound view shows the applied state of its tab before it is measured.
+                applyTabState(index, false)
+                addViewInLayout(view, -1, view.layoutParams, true)
+                measureVirtualView(index, view)
+            }
+            layoutVirtualView(index, view)
+        }
+        if (bound) {
+            invalidate()
+        }
+    }
+
+    /**
+     * Return the index of the virtualized tab at the specified x, clamped to the tabs.
+     */
+    private fun findVirtualTab(x: Float): Int {
+        var low = 0
+        var high = virtualCount - 1
+        while (low < high) {
+            val middle = (low + high + 1) ushr 1
+            if (virtualLefts[middle] <= x) {
+                low = middle
+            } else {
+                high = middle - 1
+            }
+        }
+        return low
+    }
+
+    private fun layoutVirtualView(index: Int, view: View) {
+        val lp = view.layoutParams as LayoutParams
+        val left = paddingLeft + virtualLefts[index].toInt() + lp.leftMargin
+        val top = getTabViewTop(view, lp, height)
+        view.layout(left, top, left + view.measuredWidth, top + view.measuredHeight)
+    }
+
+    /**
+     * Place the tab views next to each other, aligned vertically by the tab gravity.
+     */
+    private fun layoutTabViews(height: Int) {
+        var left = paddingLeft
+        for (i in 0 until childCount) {
+            val child = getChildAt(i)
+            if (child.visibility == GONE) {
+                continue
+            }
+            val lp = child.layoutParams as LayoutParams
+            val childWidth = child.measuredWidth
+            val top = getTabViewTop(child, lp, height)
+            left += lp.leftMargin
+            child.layout(left, top, left + childWidth, top + child.measuredHeight)
+            left += childWidth + lp.rightMargin
+        }
+    }
+
+    /**
+     * Return the top of a measured tab view, aligned vertically by the tab gravity.
+     */
+    private fun getTabViewTop(child: View, lp: LayoutParams, height: Int): Int {
+        val childHeight = child.measuredHeight
+        return when (tabGravity and Gravity.VERTICAL_GRAVITY_MASK) {
+            Gravity.TOP -> paddingTop + lp.topMargin
+            Gravity.BOTTOM -> height - paddingBottom - lp.bottomMargin - childHeight
+            else -> paddingTop + (height - paddingTop - paddingBottom - childHeight) / 2 +
+                    lp.topMargin - lp.bottomMargin
+        }
+    }
+
+    override fun shouldDelayChildPressedState(): Boolean {
+        return false
+    }
+
+    override fun generateDefaultLayoutParams(): LayoutParams {
+        return LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT)
+    }
+
+    override fun generateLayoutParams(attrs: AttributeSet): LayoutParams {
+        return LayoutParams(context, attrs)
+    }
+
+    override fun generateLayoutParams(p: ViewGroup.LayoutParams): LayoutParams {
+        return if (p is MarginLayoutParams) LayoutParams(p) else LayoutParams(p)
+    }
+
+    override fun checkLayoutParams(p: ViewGroup.LayoutParams): Boolean {
+        return p is LayoutParams
+    }
+
+    /**
+     * Compute the bounds of the canvas-drawn titles within the padding of the strip.
+     */
+    private fun layoutTitles(l: Int, r: Int) {
+        if (!isCanvasMode()) {
+            return
+        }
+        val count = titleRenderer.getCount()
+        var left = paddingLeft.toFloat()
+        for (i in 0 until count) {
+            val width = if (tabMode == SlidingTabLayout.MODE_FIXED) {
+                max(0, r - l - paddingLeft - paddingRight).toFloat() / count
+            } else {
+                getTitleWidth(i, count)
+            }
+            titleLefts[i] = left
+            titleRights[i] = left + width
+            left += width
+        }
+        titleAccessibilityHelper.invalidateRoot()
+    }
+
+    override fun onTouchEvent(event: MotionEvent): Boolean {
+        if (!isCanvasMode()) {
+            return super.onTouchEvent(event)
+        }
+        when (event.actionMasked) {
+            MotionEvent.ACTION_DOWN -> {
+                // Outside the titles the gesture is left to the parent.
+                if (findTitleAt(event.x) < 0) {
+                    return false
                 }
+                touchDownX = event.x
+                touchDownY = event.y
+            }
 
-                Gravity.CENTER -> {
-                    indicatorRectF[indicatorRectFLeft, (height - indicatorHeight) / 2, indicatorRectFRight] =
-                        (height + indicatorHeight) / 2
+            MotionEvent.ACTION_UP -> {
+                if (abs(event.x - touchDownX) < touchSlop && abs(event.y - touchDownY) < touchSlop) {
+                    val index = findTitleAt(event.x)
+                    if (index >= 0) {
+                        playSoundEffect(SoundEffectConstants.CLICK)
+                        performTitleClick(index)
+                    }
                 }
+            }
+
+            else -> {
+                // Nothing to do.
+            }
+        }
+        return true
+    }
+
+    /**
+     * Notify the click of the specified canvas-drawn title, as the click of its tab view would.
+     */
+    private fun performTitleClick(index: Int) {
+        onTabClickListener?.onClick(index)
+        titleAccessibilityHelper.sendEventForVirtualView(index, AccessibilityEvent.TYPE_VIEW_CLICKED)
+    }
+
+    override fun dispatchHoverEvent(event: MotionEvent): Boolean {
+        return isCanvasMode() && titleAccessibilityHelper.dispatchHoverEvent(event)
+                || super.dispatchHoverEvent(event)
+    }
+
+    override fun dispatchKeyEvent(event: KeyEvent): Boolean {
+        return isCanvasMode() && titleAccessibilityHelper.dispatchKeyEvent(event)
+                || super.dispatchKeyEvent(event)
+    }
+
+    override fun onFocusChanged(gainFocus: Boolean, direction: Int, previouslyFocusedRect: Rect?) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect)
+        if (isCanvasMode()) {
+            titleAccessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect)
+        }
+    }
 
-                Gravity.BOTTOM -> {
-                    indicatorRectF[indicatorRectFLeft, height - indicatorHeight - indicatorBottomMargin, indicatorRectFRight] =
-                        height - indicatorBottomMargin
+    /**
+     * Return the index of the canvas-drawn title under the specified x, or -1.
+     */
+    private fun findTitleAt(x: Float): Int {
+        for (i in 0 until titleRenderer.getCount()) {
+            if (x >= titleLefts[i] && x < titleRights[i]) {
+                return i
+            }
+        }
+        return -1
+    }
+
+    /**
+     * Draw the canvas-drawn titles that intersect the visible region.
+     */
+    private fun drawTitles(canvas: Canvas) {
+        val count = titleRenderer.getCount()
+        canvas.getClipBounds(clipRect)
+        for (i in 0 until count) {
+            if (titleRights[i] < clipRect.left || titleLefts[i] > clipRect.right) {
+                continue
+            }
+            var contentLeft = titleLefts[i] + tabPaddingStart + if (i == 0) leftPadding else 0f
+            var contentRight =
+                titleRights[i] - tabPaddingEnd - if (i == count - 1) rightPadding else 0f
+            val contentTop = tabPaddingTop.toFloat()
+            val contentBottom = (height - tabPaddingBottom).toFloat()
+            if (iconAtlas.hasIcon(i)) {
+                // Center the icon and the title together, the title keeps its reserved width.
+                val iconWidth = getIconWidth(i)
+                val blockWidth = iconWidth + titleRenderer.getReservedWidth(i)
+                contentLeft = (contentLeft + contentRight - blockWidth) / 2
+                contentRight = contentLeft + blockWidth
+                val iconSize = iconAtlas.getIconSize()
+                val iconTop = when (tabGravity and Gravity.VERTICAL_GRAVITY_MASK) {
+                    Gravity.TOP -> contentTop
+                    Gravity.BOTTOM -> contentBottom - iconSize
+                    else -> (contentTop + contentBottom - iconSize) / 2
                 }
+                val iconFilter = if (iconTint) getColorFilter(titleRenderer.getTextColor(i)) else null
+                iconAtlas.draw(canvas, i, contentLeft, iconTop, iconFilter)
+                contentLeft += iconWidth
+            }
+            titleRenderer.draw(
+                canvas, i,
+                contentLeft, contentTop,
+                contentRight, contentBottom,
+                tabGravity
+            )
+        }
+    }
 
-                else -> {
-                    // Can`t reach;
+    /**
+     * Return the geometry of all tabs, computed again only after a layout or a change of the
+     * indicator width or the paddings.
+     */
+    private fun getGeometry(): TabGeometry {
+        val count = getTabCount()
+        if (!geometryValid || geometry.getCount() != count) {
+            geometry.setCount(count)
+            for (i in 0 until count) {
+                if (isCanvasMode()) {
+                    geometry.setTabBounds(i, titleLefts[i], titleRights[i])
+                } else if (isVirtual()) {
+                    geometry.setTabBounds(
+                        i,
+                        paddingLeft + virtualLefts[i],
+                        paddingLeft + virtualLefts[i + 1]
+                    )
+                } else {
+                    val child = getChildAt(i)
+                    geometry.setTabBounds(i, child.left.toFloat(), child.right.toFloat())
                 }
             }
+            geometry.leftPadding = leftPadding
+            geometry.rightPadding = rightPadding
+            geometry.indicatorWidth = indicatorWidth
+            geometry.indicatorWidthRatio = indicatorWidthRatio
+            geometry.compute()
+            geometryValid = true
+            dividerRenderer.invalidate()
+        }
+        return geometry
+    }
 
-            if (indicatorDrawable != null) {
-                indicatorDrawable!!.setBounds(
-                    indicatorRectF.left.toInt(),
-                    indicatorRectF.top.toInt(),
-                    indicatorRectF.right.toInt(),
-                    indicatorRectF.bottom.toInt()
-                )
-                indicatorDrawable!!.draw(canvas)
-            } else {
-                canvas.drawRoundRect(
-                    indicatorRectF,
-                    indicatorCornerRadius,
-                    indicatorCornerRadius,
-                    indicatorPaint
-                )
+    /**
+     * Return the x of the strip that should be centered while sliding from position to
+     * position + 1.
+     */
+    fun getScrollCenter(position: Int, offset: Float): Float {
+        return getGeometry().getScrollCenter(position, offset)
+    }
+
+    /**
+     * Compute the indicator bounds of the current swipe and move the indicator layer there.
+     * The tab strip itself is not invalidated.
+     */
+    private fun updateIndicator() {
+        updatePill()
+        val tabCount = getTabCount()
+        if (indicatorHeight <= 0 || tabCount == 0 || firstPagePosition >= tabCount) {
+            indicatorView.update(0f, 0f, 0f, 0f, indicatorColor)
+            return
+        }
+        val geometry = getGeometry()
+        var indicatorRectFLeft = geometry.getIndicatorStart(firstPagePosition)
+        var indicatorRectFRight = geometry.getIndicatorEnd(firstPagePosition)
+        val firstPageTextColor = getFirstPageTextColor()
+
+        // Sliding the page.
+        if (firstPagePosition < tabCount - 1) {
+            val secondPageTabLeft = geometry.getIndicatorStart(firstPagePosition + 1)
+            val secondPageTabRight = geometry.getIndicatorEnd(firstPagePosition + 1)
+            val motion = indicatorMotion
+            val offset = firstPagePositionOffset
+            indicatorRectFLeft += motion.getStartFraction(offset) * (secondPageTabLeft - indicatorRectFLeft)
+            indicatorRectFRight += motion.getEndFraction(offset) * (secondPageTabRight - indicatorRectFRight)
+            if (motion.hasWidthScale()) {
+                // Scale around the center, down to a dot as wide as the indicator is high.
+                val middle = (indicatorRectFLeft + indicatorRectFRight) / 2
+                val width = indicatorRectFRight - indicatorRectFLeft
+                val dotWidth = min(indicatorHeight, width)
+                val halfWidth = (dotWidth + (width - dotWidth) * motion.getWidthScale(offset)) / 2
+                indicatorRectFLeft = middle - halfWidth
+                indicatorRectFRight = middle + halfWidth
             }
         }
+        val indicatorColor = if (indicatorColor == 0) firstPageTextColor else indicatorColor
+        when (indicatorGravity) {
+            Gravity.TOP -> {
+                indicatorRectF[indicatorRectFLeft, indicatorTopMargin, indicatorRectFRight] =
+                    indicatorTopMargin + indicatorHeight
+            }
 
-        // Callback the change color.
-        onColorChangeListener?.let {
-            var firstPageTextColor = tabPalette.getTextColor(firstPagePosition)
-            // Sliding the page.
-            if (firstPagePosition < getChildCount() - 1) {
-                val secondPageTextColor = tabPalette.getTextColor(secondPagePosition)
-                if (firstPageTextColor != secondPageTextColor) {
-                    firstPageTextColor =
-                        mixColor(secondPageTextColor, firstPageTextColor, firstPagePositionOffset)
+            Gravity.CENTER -> {
+                indicatorRectF[indicatorRectFLeft, (height - indicatorHeight) / 2, indicatorRectFRight] =
+                    (height + indicatorHeight) / 2
+            }
+
+            Gravity.BOTTOM -> {
+                indicatorRectF[indicatorRectFLeft, height - indicatorHeight - indicatorBottomMargin, indicatorRectFRight] =
+                    height - indicatorBottomMargin
+            }
+
+            else -> {
+                // Can`t reach;
+            }
+        }
+        indicatorView.update(
+            indicatorRectF.left,
+            indicatorRectF.top,
+            indicatorRectF.right,
+            indicatorRectF.bottom,
+            indicatorColor
+        )
+        indicatorView.updateGradient(getIndicatorGradient(), firstPagePositionOffset)
+    }
+
+    /**
+     * Move the selected tab background to the bounds of the first page tab, towards the next
+     * tab along the indicator motion while sliding. It is one round rect on its own layer.
+     */
+    private fun updatePill() {
+        val tabCount = getTabCount()
+        if (pillColor == 0 || tabCount == 0 || firstPagePosition >= tabCount) {
+            pillView.update(0f, 0f, 0f, 0f, pillColor)
+            return
+        }
+        val geometry = getGeometry()
+        // The edge tabs include the padding of the widget, the pill only covers their content.
+        var left = geometry.getContentLeft(firstPagePosition)
+        var right = geometry.getContentRight(firstPagePosition)
+        if (firstPagePosition < tabCount - 1) {
+            val offset = firstPagePositionOffset
+            left += indicatorMotion.getStartFraction(offset) *
+                    (geometry.getContentLeft(firstPagePosition + 1) - left)
+            right += indicatorMotion.getEndFraction(offset) *
+                    (geometry.getContentRight(firstPagePosition + 1) - right)
+        }
+        val top = pillVerticalMargin
+        val bottom = height - pillVerticalMargin
+        pillView.setCornerRadius(if (pillCornerRadius < 0) (bottom - top) / 2 else pillCornerRadius)
+        pillView.update(
+            left + pillHorizontalMargin,
+            top,
+            right - pillHorizontalMargin,
+            bottom,
+            pillColor
+        )
+    }
+
+    /**
+     * Return the gradient between the first page color and the color of the page after it.
+     * The gradients are created once per distinct color pair of the resolved palette and never
+     * changed, the indicator slides them when drawing.
+     */
+    private fun getIndicatorGradient(): LinearGradient? {
+        if (!indicatorGradient || this.indicatorColor != 0) {
+            return null
+        }
+        if (firstPagePosition >= getTabCount() - 1) {
+            return null
+        }
+        val palette = resolvePalette()
+        if (indicatorGradientsVersion != palette.getVersion()) {
+            indicatorGradients.clear()
+            indicatorGradientsVersion = palette.getVersion()
+        }
+        val startColor = palette.getTextColor(firstPagePosition)
+        val endColor = palette.getTextColor(firstPagePosition + 1)
+        val key = (startColor.toLong() shl 32) or (endColor.toLong() and 0xFFFFFFFFL)
+        var gradient = indicatorGradients.get(key)
+        if (gradient == null) {
+            if (indicatorGradients.size() >= MAX_COLOR_FILTERS) {
+                indicatorGradients.clear()
+            }
+            gradient = LinearGradient(0f, 0f, 1f, 0f, startColor, endColor, Shader.TileMode.CLAMP)
+            indicatorGradients.put(key, gradient)
+        }
+        return gradient
+    }
+
+    /**
+     * Schedule [applyTabStates] to run once at the start of the next frame, before the
+     * traversal, no matter how many times the swipe or the selection changes until then.
+     */
+    private fun scheduleStatePass() {
+        if (!statePassScheduled) {
+            statePassScheduled = true
+            ViewCompat.postOnAnimation(this, statePass)
+        }
+    }
+
+    /**
+     * Forget the applied state of all tabs, the next pass resolves and applies every tab.
+     */
+    private fun invalidateTabStates() {
+        appliedStylesValid = false
+        scheduleStatePass()
+    }
+
+    /**
+     * Bring the tabs to the state of the current swipe and selection. Only the tabs that may
+     * have changed since the last pass are resolved, unless the transition resolves all tabs,
+     * and only those whose resolved style differs from the applied one are touched.
+     */
+    private fun applyTabStates() {
+        val tabCount = prepareTabStates()
+        dirtyRect.setEmpty()
+        collectingDirtyRegion = true
+        if (tabCount > 0) {
+            if (!appliedStylesValid) {
+                for (i in 0 until tabCount) {
+                    applyTabState(i, false)
+                }
+                appliedStylesValid = true
+            } else if (tabTransition.dependsOnOffset()
+                || selectedPosition != lastSelectedPosition
+                || firstPagePosition != lastFirstPagePosition
+            ) {
+                // A transition that ignores the offset resolves nothing within a page swipe.
+                if (tabTransition.resolvesAllTabs()) {
+                    for (i in 0 until tabCount) {
+                        applyTabState(i, true)
+                    }
+                } else {
+                    applyTabState(lastSelectedPosition, true)
+                    applyTabState(lastFirstPagePosition, true)
+                    applyTabState(lastFirstPagePosition + 1, true)
+                    applyTabState(selectedPosition, true)
+                    applyTabState(firstPagePosition, true)
+                    applyTabState(firstPagePosition + 1, true)
                 }
             }
-            it.onColorChanged(firstPageTextColor)
+        }
+        collectingDirtyRegion = false
+        if (!dirtyRect.isEmpty) {
+            @Suppress("DEPRECATION")
+            invalidate(dirtyRect)
+        }
+        lastSelectedPosition = selectedPosition
+        lastFirstPagePosition = firstPagePosition
+
+        // Callback the change color.
+        if (tabCount > 0 && firstPagePosition < tabCount) {
+            dispatchColorChanged(getFirstPageTextColor())
+        }
+    }
+
+    /**
+     * Bring the applied styles to the tab count and the transition state to the current swipe
+     * and selection, before tab styles are resolved.
+     *
+     * @return The count of tabs.
+     */
+    private fun prepareTabStates(): Int {
+        val tabCount = getTabCount()
+        if (appliedStyles.size != tabCount) {
+            appliedStyles = Array(tabCount) { TabStyle() }
+            appliedStylesValid = false
+        }
+        transitionState.palette = resolvePalette()
+        transitionState.set(
+            selectedPosition,
+            firstPagePosition,
+            firstPagePositionOffset,
+            !isTabSelected,
+            tabTextColor,
+            tabTextSize,
+            selectedTabTextSize,
+            onlySelectedTabBold()
+        )
+        return tabCount
+    }
+
+    /**
+     * Callback the color at most once per pass, and only when the quantized color differs from
+     * the last dispatched one.
+     */
+    private fun dispatchColorChanged(@ColorInt color: Int) {
+        val listener = onColorChangeListener ?: return
+        val quantizedColor = quantizeColor(color)
+        if (hasDispatchedColor && quantizedColor == lastDispatchedColor) {
+            return
+        }
+        hasDispatchedColor = true
+        lastDispatchedColor = quantizedColor
+        listener.onColorChanged(quantizedColor)
+    }
+
+    private fun quantizeColor(@ColorInt color: Int): Int {
+        val step = colorQuantizeStep
+        if (step <= 1) {
+            return color
+        }
+        return Color.argb(
+            quantizeChannel(Color.alpha(color), step),
+            quantizeChannel(Color.red(color), step),
+            quantizeChannel(Color.green(color), step),
+            quantizeChannel(Color.blue(color), step)
+        )
+    }
+
+    private fun quantizeChannel(channel: Int, step: Int): Int {
+        return min(255, (channel + step / 2) / step * step)
+    }
+
+    private fun applyTabState(index: Int, changedOnly: Boolean) {
+        if (index < 0 || index >= appliedStyles.size) {
+            return
+        }
+        // A virtualized tab without view is applied in full when it is bound.
+        if (isVirtual() && virtualViews.get(index) == null) {
+            return
+        }
+        resolveTabStyle(index, resolvedStyle)
+        val applied = appliedStyles[index]
+        if (changedOnly && applied.isSameAs(resolvedStyle)) {
+            return
+        }
+        if (!changedOnly || applied.textColor != resolvedStyle.textColor) {
+            setTabTextColor(index, resolvedStyle.textColor)
+            setTabIconTint(index, resolvedStyle.textColor)
+        }
+        if (!changedOnly || applied.textSize != resolvedStyle.textSize) {
+            setTabTextSize(index, resolvedStyle.textSize, changedOnly && showTabTextScaleAnim)
+        }
+        if (!changedOnly || applied.bold != resolvedStyle.bold) {
+            setTabTextBold(index, resolvedStyle.bold)
+        }
+        if (!changedOnly || applied.selected != resolvedStyle.selected) {
+            setTabTextSelected(index, resolvedStyle.selected)
+        }
+        if (!changedOnly || applied.fillColor != resolvedStyle.fillColor
+            || applied.fillFraction != resolvedStyle.fillFraction
+        ) {
+            setTabTextFill(index, resolvedStyle.fillColor, resolvedStyle.fillFraction)
+        }
+        applied.set(resolvedStyle)
+    }
+
+    /**
+     * Resolve the style the specified tab must have for the current swipe and selection.
+     */
+    private fun resolveTabStyle(index: Int, style: TabStyle) {
+        tabTransition.resolveStyle(index, transitionState, style)
+    }
+
+    /**
+     * Return the text color of the first page, mixed with the second page while sliding.
+     */
+    private fun getFirstPageTextColor(): Int {
+        return resolvePalette().getPageColor(firstPagePosition, firstPagePositionOffset)
+    }
+
+    /**
+     * Return the palette colors resolved for the current tab count.
+     */
+    private fun resolvePalette(): TabPaletteCache {
+        paletteCache.resolve(customTabPalette ?: tabPalette, getTabCount())
+        return paletteCache
+    }
+
+    override fun onDraw(canvas: Canvas) {
+        // The canvas-drawn titles above the indicator.
+        if (isCanvasMode() && getTabCount() > 0) {
+            drawTitles(canvas)
+        }
+    }
+
+    /**
+     * Draw the dividers on their own layer below the indicator.
+     */
+    private fun drawDividers(canvas: Canvas) {
+        if (getTabCount() == 0) {
+            return
+        }
+        if (dividerWidth > 0) {
+            // If padding is 0, then the divider is half height of the parent control.
+            val dividerHeight =
+                if (dividerPadding == 0f) height / 2 else (height - 2 * dividerPadding).toInt()
+            dividerRenderer.draw(
+                canvas,
+                getGeometry(),
+                resolvePalette(),
+                (height - dividerHeight).toFloat() / 2,
+                (height + dividerHeight).toFloat() / 2
+            )
         }
     }
 
     fun reset() {
+        releaseScrollLayers()
+        tabViewBinder = null
+        virtualCount = 0
+        virtualTitles = emptyList()
+        virtualLefts = FloatArray(1)
+        virtualViews.clear()
+        val removed = List(childCount) { getChildAt(it) } + recycledViews
+        recycledViews.clear()
         removeAllViews()
+        removed.forEach { recycleTabView(it) }
+        appliedStylesValid = false
+        titleRenderer.clear()
+        titleAccessibilityHelper.invalidateRoot()
+        iconAtlas.clear()
+        titleLefts = FloatArray(0)
+        titleRights = FloatArray(0)
         lastSelectedPosition = -1
         selectedPosition = 0
         isTabSelected = true
     }
 
+    /**
+     * Exposes every canvas-drawn title as a clickable virtual view, selected while its page is.
+     */
+    private inner class TitleAccessibilityHelper : ExploreByTouchHelper(this@SlidingTabStrip) {
+        private val titleBounds = Rect()
+
+        override fun getVirtualViewAt(x: Float, y: Float): Int {
+            val index = findTitleAt(x)
+            return if (index >= 0) index else INVALID_ID
+        }
+
+        override fun getVisibleVirtualViews(virtualViewIds: MutableList<Int>) {
+            for (i in 0 until titleRenderer.getCount()) {
+                virtualViewIds.add(i)
+            }
+        }
+
+        override fun onPopulateNodeForVirtualView(
+            virtualViewId: Int,
+            node: AccessibilityNodeInfoCompat
+        ) {
+            if (virtualViewId >= titleRenderer.getCount()) {
+                // The titles changed since the id was handed out.
+                node.contentDescription = ""
+                titleBounds.setEmpty()
+                node.setBoundsInParent(titleBounds)
+                return
+            }
+            node.className = TextView::class.java.name
+            node.text = titleRenderer.getTitle(virtualViewId) ?: ""
+            node.isClickable = true
+            node.isSelected = virtualViewId == selectedPosition
+            node.addAction(AccessibilityActionCompat.ACTION_CLICK)
+            titleBounds.set(
+                floor(titleLefts[virtualViewId]).toInt(), 0,
+                ceil(titleRights[virtualViewId]).toInt(), height
+            )
+            node.setBoundsInParent(titleBounds)
+        }
+
+        override fun onPerformActionForVirtualView(
+            virtualViewId: Int,
+            action: Int,
+            arguments: Bundle?
+        ): Boolean {
+            if (action != AccessibilityNodeInfoCompat.ACTION_CLICK
+                || virtualViewId >= titleRenderer.getCount()
+            ) {
+                return false
+            }
+            performTitleClick(virtualViewId)
+            return true
+        }
+    }
+
     private class SimpleTabPalette : TabPalette {
         private lateinit var textColors: IntArray
         private lateinit var dividerColors: IntArray
@@ -575,7 +2264,32 @@ internal class SlidingTabStrip(context: Context) : LinearLayout(context) {
         }
     }
 
+    /**
+     * The layout params of a tab view. The width is only honoured in
+     * [SlidingTabLayout.MODE_SCROLLABLE], fixed tabs share the strip width equally.
+     */
+    class LayoutParams : MarginLayoutParams {
+        constructor(c: Context, attrs: AttributeSet?) : super(c, attrs)
+        constructor(width: Int, height: Int) : super(width, height)
+        constructor(source: MarginLayoutParams) : super(source)
+        constructor(source: ViewGroup.LayoutParams) : super(source)
+    }
+
+    /**
+     * Creates or rebinds the view of a virtualized tab.
+     */
+    fun interface TabViewBinder {
+        /**
+         * Return the view of the tab at the specified position.
+         *
+         * @param recycled A view of another tab to rebind, or null to create a new view.
+         * @param position The position of the tab.
+         */
+        fun bindTabView(recycled: View?, position: Int): View
+    }
+
     companion object {
         private const val ANIMATION_DURATION = 300
+        private const val MAX_COLOR_FILTERS = 256
     }
 }
\ No newline at end of file
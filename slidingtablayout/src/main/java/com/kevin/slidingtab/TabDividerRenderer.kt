@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import android.graphics.Canvas
+import android.graphics.Paint
+
+/**
+ * TabDividerRenderer
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 14:36:18
+ * Major Function：<b>Draws the dividers of a [SlidingTabStrip] in batches</b>
+ *
+ * The line points of all dividers are built once per layout and grouped by color, so every
+ * frame issues one drawLines call per distinct divider color.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+internal class TabDividerRenderer {
+    private val paint = Paint()
+    private var colors = IntArray(0)
+    private var points = arrayOfNulls<FloatArray>(0)
+    private var valid = false
+    private var paletteVersion = -1
+
+    fun setStrokeWidth(width: Float) {
+        paint.strokeWidth = width
+    }
+
+    /**
+     * Forget the built lines, they are built again on the next [draw].
+     */
+    fun invalidate() {
+        valid = false
+    }
+
+    fun draw(canvas: Canvas, geometry: TabGeometry, palette: TabPaletteCache, top: Float, bottom: Float) {
+        if (!valid || paletteVersion != palette.getVersion()) {
+            build(geometry, palette, top, bottom)
+        }
+        for (i in colors.indices) {
+            val linePoints = points[i] ?: continue
+            paint.color = colors[i]
+            canvas.drawLines(linePoints, paint)
+        }
+    }
+
+    private fun build(geometry: TabGeometry, palette: TabPaletteCache, top: Float, bottom: Float) {
+        val dividerCount = geometry.getCount() - 1
+        // Group the dividers by color, a palette usually has very few divider colors.
+        val groupColors = IntArray(dividerCount.coerceAtLeast(0))
+        val groupSizes = IntArray(groupColors.size)
+        val dividerGroups = IntArray(groupColors.size)
+        var groupCount = 0
+        for (i in 0 until dividerCount) {
+            val color = palette.getDividerColor(i)
+            var group = 0
+            while (group < groupCount && groupColors[group] != color) {
+                group++
+            }
+            if (group == groupCount) {
+                groupColors[groupCount++] = color
+            }
+            groupSizes[group]++
+            dividerGroups[i] = group
+        }
+        colors = groupColors.copyOf(groupCount)
+        points = Array(groupCount) { FloatArray(groupSizes[it] * 4) }
+        val filled = IntArray(groupCount)
+        for (i in 0 until dividerCount) {
+            val group = dividerGroups[i]
+            val linePoints = points[group]!!
+            val x = geometry.getTabRight(i)
+            var offset = filled[group]
+            linePoints[offset++] = x
+            linePoints[offset++] = top
+            linePoints[offset++] = x
+            linePoints[offset++] = bottom
+            filled[group] = offset
+        }
+        paletteVersion = palette.getVersion()
+        valid = true
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+/**
+ * TabGeometry
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 14:02:37
+ * Major Function：<b>The per-tab geometry of a [SlidingTabStrip], computed once per layout</b>
+ *
+ * For every tab a packed float array holds its bounds, its content bounds without the left and
+ * right padding of the widget, the start and end of its indicator with [indicatorWidth] and
+ * [indicatorWidthRatio] applied to the content bounds, and the center the tab layout scrolls
+ * to. A swipe frame only interpolates between two entries.
+ * This class has no Android dependency.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+internal class TabGeometry {
+    private var data = FloatArray(0)
+    private var count = 0
+    var leftPadding = 0f
+    var rightPadding = 0f
+    var indicatorWidth = 0f
+    var indicatorWidthRatio = 0f
+
+    fun getCount(): Int {
+        return count
+    }
+
+    /**
+     * Set the tab count, the bounds of every tab must be set again before [compute].
+     */
+    fun setCount(count: Int) {
+        if (data.size < count * STRIDE) {
+            data = FloatArray(count * STRIDE)
+        }
+        this.count = count
+    }
+
+    fun setTabBounds(index: Int, left: Float, right: Float) {
+        data[index * STRIDE + TAB_LEFT] = left
+        data[index * STRIDE + TAB_RIGHT] = right
+    }
+
+    /**
+     * Compute the indicator and scroll entries of every tab from its bounds.
+     */
+    fun compute() {
+        for (i in 0 until count) {
+            val offset = i * STRIDE
+            val tabLeft = data[offset + TAB_LEFT]
+            val tabRight = data[offset + TAB_RIGHT]
+            var start = tabLeft
+            var end = tabRight
+            // The first and the last tab include the padding of the whole widget.
+            if (i == 0 && leftPadding > 0) {
+                start += leftPadding
+            }
+            if (i == count - 1) {
+                end -= rightPadding
+            }
+            data[offset + CONTENT_LEFT] = start
+            data[offset + CONTENT_RIGHT] = end
+            val middle = (start + end) / 2
+            if (indicatorWidth != 0f) {
+                start = middle - indicatorWidth / 2
+                end = middle + indicatorWidth / 2
+            } else if (indicatorWidthRatio > 0 && indicatorWidthRatio < 1) {
+                val halfWidth = (end - start) / 2 * indicatorWidthRatio
+                start = middle - halfWidth
+                end = middle + halfWidth
+            }
+            data[offset + INDICATOR_START] = start
+            data[offset + INDICATOR_END] = end
+            data[offset + SCROLL_CENTER] = (tabLeft + tabRight) / 2
+        }
+    }
+
+    fun getTabLeft(index: Int): Float {
+        return data[index * STRIDE + TAB_LEFT]
+    }
+
+    fun getTabRight(index: Int): Float {
+        return data[index * STRIDE + TAB_RIGHT]
+    }
+
+    /**
+     * Return the left of the specified tab, without the left padding of the widget.
+     */
+    fun getContentLeft(index: Int): Float {
+        return data[index * STRIDE + CONTENT_LEFT]
+    }
+
+    /**
+     * Return the right of the specified tab, without the right padding of the widget.
+     */
+    fun getContentRight(index: Int): Float {
+        return data[index * STRIDE + CONTENT_RIGHT]
+    }
+
+    fun getIndicatorStart(index: Int): Float {
+        return data[index * STRIDE + INDICATOR_START]
+    }
+
+    fun getIndicatorEnd(index: Int): Float {
+        return data[index * STRIDE + INDICATOR_END]
+    }
+
+    /**
+     * Return the strip x that should be centered while sliding from position to position + 1.
+     */
+    fun getScrollCenter(position: Int, offset: Float): Float {
+        val center = data[position * STRIDE + SCROLL_CENTER]
+        if (position >= count - 1) {
+            return center
+        }
+        val nextCenter = data[(position + 1) * STRIDE + SCROLL_CENTER]
+        return center + (nextCenter - center) * offset
+    }
+
+    companion object {
+        private const val TAB_LEFT = 0
+        private const val TAB_RIGHT = 1
+        private const val INDICATOR_START = 2
+        private const val INDICATOR_END = 3
+        private const val SCROLL_CENTER = 4
+        private const val CONTENT_LEFT = 5
+        private const val CONTENT_RIGHT = 6
+        private const val STRIDE = 7
+    }
+}
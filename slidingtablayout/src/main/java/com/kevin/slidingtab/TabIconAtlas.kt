@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.ColorFilter
+import android.graphics.Paint
+import android.graphics.Rect
+import android.graphics.RectF
+import android.graphics.drawable.Drawable
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * TabIconAtlas
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 17:05:46
+ * Major Function：<b>All tab icons of a [SlidingTabStrip] packed into atlas bitmaps</b>
+ *
+ * The icons are rendered once at the displayed size into the cells of an atlas bitmap, so
+ * drawing the icons of the strip uploads one texture instead of one per tab. An atlas page is
+ * at most [MAX_ATLAS_SIZE] wide and high to stay within the texture size of any GPU, the
+ * icons that do not fit go to further pages. Only tabs with an icon take a cell.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+internal class TabIconAtlas {
+    private val paint = Paint(Paint.ANTI_ALIAS_FLAG or Paint.FILTER_BITMAP_FLAG)
+    private val srcRect = Rect()
+    private val dstRect = RectF()
+    private val tmpBounds = Rect()
+    private var pages = arrayOfNulls<Bitmap>(0)
+    private var cells = IntArray(0)
+    private var iconSize = 0
+    private var columns = 1
+    private var cellsPerPage = 1
+
+    fun getCount(): Int {
+        return cells.size
+    }
+
+    fun hasIcon(index: Int): Boolean {
+        return index < cells.size && cells[index] >= 0
+    }
+
+    /**
+     * Return the size the icons are displayed at, 0 without any icon.
+     */
+    fun getIconSize(): Int {
+        return if (pages.isNotEmpty()) iconSize else 0
+    }
+
+    /**
+     * Render the icons into new atlas pages, each scaled into a square cell of the given size.
+     * The bounds of the drawables are restored afterwards.
+     *
+     * @param icons The icon of every tab, null for a tab without icon.
+     * @param size  The displayed size, 0 to use the largest intrinsic size of the icons.
+     */
+    fun build(icons: List<Drawable?>, size: Int) {
+        clear()
+        var iconCount = 0
+        var cellSize = size
+        for (icon in icons) {
+            if (icon == null) {
+                continue
+            }
+            iconCount++
+            if (size <= 0) {
+                cellSize = max(cellSize, max(icon.intrinsicWidth, icon.intrinsicHeight))
+            }
+        }
+        if (iconCount == 0 || cellSize <= 0) {
+            return
+        }
+        // A cell larger than a page would not upload either, such icons are drawn smaller.
+        cellSize = min(cellSize, MAX_ATLAS_SIZE)
+        iconSize = cellSize
+        columns = max(1, min(iconCount, MAX_ATLAS_SIZE / cellSize))
+        cellsPerPage = columns * max(1, MAX_ATLAS_SIZE / cellSize)
+        val pageCount = (iconCount + cellsPerPage - 1) / cellsPerPage
+        pages = arrayOfNulls(pageCount)
+        cells = IntArray(icons.size)
+        var canvas: Canvas? = null
+        var cell = 0
+        for (i in icons.indices) {
+            val icon = icons[i]
+            if (icon == null) {
+                cells[i] = -1
+                continue
+            }
+            val page = cell / cellsPerPage
+            val pageCell = cell % cellsPerPage
+            if (pageCell == 0) {
+                // The last page only has the rows it needs.
+                val pageCells = min(cellsPerPage, iconCount - cell)
+                val rows = (pageCells + columns - 1) / columns
+                val bitmap =
+                    Bitmap.createBitmap(columns * cellSize, rows * cellSize, Bitmap.Config.ARGB_8888)
+                pages[page] = bitmap
+                canvas = Canvas(bitmap)
+            }
+            cells[i] = cell++
+            icon.copyBounds(tmpBounds)
+            // Fit the icon into its cell, keeping its aspect ratio.
+            var width = cellSize
+            var height = cellSize
+            if (icon.intrinsicWidth > 0 && icon.intrinsicHeight > 0) {
+                val scale = min(
+                    cellSize.toFloat() / icon.intrinsicWidth,
+                    cellSize.toFloat() / icon.intrinsicHeight
+                )
+                width = (icon.intrinsicWidth * scale).toInt()
+                height = (icon.intrinsicHeight * scale).toInt()
+            }
+            val left = pageCell % columns * cellSize + (cellSize - width) / 2
+            val top = pageCell / columns * cellSize + (cellSize - height) / 2
+            icon.setBounds(left, top, left + width, top + height)
+            icon.draw(canvas!!)
+            icon.bounds = tmpBounds
+        }
+    }
+
+    /**
+     * Draw the icon of the specified tab from its atlas cell.
+     *
+     * @param colorFilter The color filter the icon is drawn with, or null.
+     */
+    fun draw(canvas: Canvas, index: Int, left: Float, top: Float, colorFilter: ColorFilter?) {
+        if (!hasIcon(index)) {
+            return
+        }
+        val cell = cells[index]
+        val atlas = pages[cell / cellsPerPage] ?: return
+        val pageCell = cell % cellsPerPage
+        val cellLeft = pageCell % columns * iconSize
+        val cellTop = pageCell / columns * iconSize
+        srcRect.set(cellLeft, cellTop, cellLeft + iconSize, cellTop + iconSize)
+        dstRect.set(left, top, left + iconSize, top + iconSize)
+        paint.colorFilter = colorFilter
+        canvas.drawBitmap(atlas, srcRect, dstRect, paint)
+    }
+
+    /**
+     * Drop the atlas pages. They are not recycled, a display list recorded before may still
+     * draw them on the render thread, so they are left to the garbage collector.
+     */
+    fun clear() {
+        pages = arrayOfNulls(0)
+        cells = IntArray(0)
+    }
+
+    companion object {
+        private const val MAX_ATLAS_SIZE = 2048
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import androidx.annotation.ColorInt
+import com.kevin.slidingtab.SlidingTabLayout.TabPalette
+import kotlin.math.pow
+import kotlin.math.roundToInt
+
+/**
+ * TabPaletteCache
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 13:20:44
+ * Major Function：<b>Resolved palette colors and precomputed color transitions</b>
+ *
+ * The text and divider colors of every position are resolved into arrays when the palette or
+ * the tab count changes. The transitions of the swiped pair of tabs are precomputed into lookup
+ * tables when the pair changes, so the colors of a swipe frame are plain array reads.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+internal class TabPaletteCache {
+    private var textColors = IntArray(0)
+    private var dividerColors = IntArray(0)
+    private var resolved = false
+    private var version = 0
+
+    @ColorInt
+    private var normalTextColor = 0
+    private var linearBlending = false
+
+    // The transitions of the pair (pairPosition, pairPosition + 1), indexed by the offset.
+    private var pairPosition = -1
+    private val leavingTable = IntArray(TABLE_SIZE)
+    private val enteringTable = IntArray(TABLE_SIZE)
+    private val pageTable = IntArray(TABLE_SIZE)
+
+    /**
+     * Forget the resolved colors, they are resolved again on the next [resolve].
+     */
+    fun invalidate() {
+        resolved = false
+        pairPosition = -1
+    }
+
+    fun setNormalTextColor(@ColorInt color: Int) {
+        if (normalTextColor != color) {
+            normalTextColor = color
+            pairPosition = -1
+        }
+    }
+
+    fun setLinearBlending(linear: Boolean) {
+        if (linearBlending != linear) {
+            linearBlending = linear
+            pairPosition = -1
+        }
+    }
+
+    /**
+     * Resolve the colors of every position from the palette, unless already resolved for the
+     * same tab count.
+     */
+    fun resolve(palette: TabPalette, count: Int) {
+        if (resolved && textColors.size == count) {
+            return
+        }
+        textColors = IntArray(count) { palette.getTextColor(it) }
+        dividerColors = IntArray(count) { palette.getDividerColor(it) }
+        resolved = true
+        version++
+        pairPosition = -1
+    }
+
+    /**
+     * Return a number that changes every time the colors are resolved again.
+     */
+    fun getVersion(): Int {
+        return version
+    }
+
+    @ColorInt
+    fun getTextColor(position: Int): Int {
+        return textColors[position]
+    }
+
+    @ColorInt
+    fun getDividerColor(position: Int): Int {
+        return dividerColors[position]
+    }
+
+    /**
+     * Return the text color of the tab at position while it is left, from its selected color
+     * at offset 0 to the normal color at offset 1.
+     */
+    @ColorInt
+    fun getLeavingColor(position: Int, offset: Float): Int {
+        preparePair(position)
+        return leavingTable[toIndex(offset)]
+    }
+
+    /**
+     * Return the text color of the tab at position + 1 while it is entered, from the normal
+     * color at offset 0 to its selected color at offset 1.
+     */
+    @ColorInt
+    fun getEnteringColor(position: Int, offset: Float): Int {
+        preparePair(position)
+        return enteringTable[toIndex(offset)]
+    }
+
+    /**
+     * Return the page color between position and position + 1.
+     */
+    @ColorInt
+    fun getPageColor(position: Int, offset: Float): Int {
+        preparePair(position)
+        return pageTable[toIndex(offset)]
+    }
+
+    private fun toIndex(offset: Float): Int {
+        return (offset * (TABLE_SIZE - 1)).roundToInt().coerceIn(0, TABLE_SIZE - 1)
+    }
+
+    private fun preparePair(position: Int) {
+        if (pairPosition == position) {
+            return
+        }
+        pairPosition = position
+        val firstColor = textColors[position]
+        val secondColor =
+            if (position + 1 < textColors.size) textColors[position + 1] else firstColor
+        for (i in 0 until TABLE_SIZE) {
+            val offset = i.toFloat() / (TABLE_SIZE - 1)
+            leavingTable[i] = blend(firstColor, normalTextColor, offset)
+            enteringTable[i] = blend(normalTextColor, secondColor, offset)
+            pageTable[i] = blend(firstColor, secondColor, offset)
+        }
+    }
+
+    /**
+     * Blend from the start color at fraction 0 to the end color at fraction 1. The channels are
+     * unpacked by hand, this class does not depend on the framework.
+     */
+    private fun blend(@ColorInt start: Int, @ColorInt end: Int, fraction: Float): Int {
+        if (start == end) {
+            return start
+        }
+        var color = 0
+        for (shift in CHANNEL_SHIFTS) {
+            val startChannel = start ushr shift and 0xff
+            val endChannel = end ushr shift and 0xff
+            // Alpha is not gamma-encoded, it always blends straight.
+            val channel = if (linearBlending && shift != 24) {
+                blendLinear(startChannel, endChannel, fraction)
+            } else {
+                (startChannel + (endChannel - startChannel) * fraction).toInt()
+            }
+            color = color or (channel shl shift)
+        }
+        return color
+    }
+
+    private fun blendLinear(start: Int, end: Int, fraction: Float): Int {
+        val linearStart = SRGB_TO_LINEAR[start]
+        val linearEnd = SRGB_TO_LINEAR[end]
+        return linearToSrgb(linearStart + (linearEnd - linearStart) * fraction)
+    }
+
+    private fun linearToSrgb(linear: Float): Int {
+        val srgb = if (linear <= 0.0031308f) {
+            linear * 12.92f
+        } else {
+            1.055f * linear.pow(1 / 2.4f) - 0.055f
+        }
+        return (srgb * 255).roundToInt().coerceIn(0, 255)
+    }
+
+    companion object {
+        private const val TABLE_SIZE = 65
+
+        // The alpha, red, green and blue channels of a packed color.
+        private val CHANNEL_SHIFTS = intArrayOf(24, 16, 8, 0)
+
+        private val SRGB_TO_LINEAR = FloatArray(256) {
+            val srgb = it / 255f
+            if (srgb <= 0.04045f) srgb / 12.92f else ((srgb + 0.055f) / 1.055f).pow(2.4f)
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * TabRangeDiff
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 23:52:18
+ * Major Function：<b>The one range of tabs that changed between two populations</b>
+ *
+ * The tabs before [start] are unchanged, as are the tabs after the changed range. The changed
+ * range had [oldCount] tabs and has [count] tabs now, it is rebound in place for the tabs both
+ * have and only the difference is inserted or removed. Positions are mapped across the change
+ * so the selected tab stays the same tab.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+internal class TabRangeDiff(
+    val start: Int,
+    val oldCount: Int,
+    val count: Int,
+    private val size: Int
+) {
+
+    /**
+     * Map a position before the change to the position of the same tab after it. A position
+     * whose tab was removed goes to the tab that took its place.
+     */
+    fun mapPosition(position: Int): Int {
+        return when {
+            position < start -> position
+            position >= start + oldCount -> position + count - oldCount
+            position - start < count -> position
+            else -> max(0, min(start + count, size - 1))
+        }
+    }
+
+    companion object {
+
+        /**
+         * Find the changed range between two tab lists by their common prefix and suffix.
+         *
+         * @param isSame Whether the tab at an old position equals the tab at a new position.
+         */
+        fun compute(oldSize: Int, size: Int, isSame: (Int, Int) -> Boolean): TabRangeDiff {
+            val sameCount = min(oldSize, size)
+            var prefix = 0
+            while (prefix < sameCount && isSame(prefix, prefix)) {
+                prefix++
+            }
+            var suffix = 0
+            while (suffix < sameCount - prefix && isSame(oldSize - 1 - suffix, size - 1 - suffix)) {
+                suffix++
+            }
+            return TabRangeDiff(prefix, oldSize - prefix - suffix, size - prefix - suffix, size)
+        }
+
+        fun inserted(start: Int, count: Int, size: Int): TabRangeDiff {
+            return TabRangeDiff(start, 0, count, size)
+        }
+
+        fun removed(start: Int, count: Int, size: Int): TabRangeDiff {
+            return TabRangeDiff(start, count, 0, size)
+        }
+
+        /**
+         * Map a position before a tab moved from one position to another to the position of
+         * the same tab after it.
+         */
+        fun mapMovedPosition(position: Int, from: Int, to: Int): Int {
+            return when {
+                position == from -> to
+                from < to && position in from + 1..to -> position - 1
+                from > to && position in to until from -> position + 1
+                else -> position
+            }
+        }
+    }
+}
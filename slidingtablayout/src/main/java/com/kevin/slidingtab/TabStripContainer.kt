@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import android.content.Context
+import android.view.ViewGroup
+
+/**
+ * TabStripContainer
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 22:41:05
+ * Major Function：<b>Stacks the pill, divider and indicator layers below a [SlidingTabStrip]</b>
+ *
+ * The tab strip is measured once with the spec it ends at, the layers are then sized exactly
+ * to it. In the fixed mode the strip gets the viewport width right away, so the fill viewport
+ * pass of the scroll view finds it wide enough and never measures it again.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+internal class TabStripContainer(
+    context: Context,
+    private val slidingTabStrip: SlidingTabStrip
+) : ViewGroup(context) {
+    private var viewportWidth = 0
+
+    init {
+        addView(slidingTabStrip.getPillView())
+        addView(slidingTabStrip.getDividerView())
+        addView(slidingTabStrip.getIndicatorView())
+        addView(slidingTabStrip)
+    }
+
+    /**
+     * Set the width the scroll view shows, 0 when it is not exact. The strip is then measured
+     * with the spec the scroll view passes.
+     */
+    fun setViewportWidth(width: Int) {
+        viewportWidth = width
+    }
+
+    override fun onMeasure(widthMeasureSpec: Int, heightMeasureSpec: Int) {
+        val stripWidthMeasureSpec = if (slidingTabStrip.getTabMode() == SlidingTabLayout.MODE_FIXED
+            && viewportWidth > 0
+        ) {
+            MeasureSpec.makeMeasureSpec(viewportWidth, MeasureSpec.EXACTLY)
+        } else {
+            widthMeasureSpec
+        }
+        slidingTabStrip.measure(stripWidthMeasureSpec, heightMeasureSpec)
+        val width = slidingTabStrip.measuredWidth
+        val height = slidingTabStrip.measuredHeight
+        val layerWidthMeasureSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY)
+        val layerHeightMeasureSpec = MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY)
+        for (i in 0 until childCount) {
+            val child = getChildAt(i)
+            if (child !== slidingTabStrip) {
+                child.measure(layerWidthMeasureSpec, layerHeightMeasureSpec)
+            }
+        }
+        setMeasuredDimension(width, height)
+    }
+
+    override fun onLayout(changed: Boolean, l: Int, t: Int, r: Int, b: Int) {
+        for (i in 0 until childCount) {
+            getChildAt(i).layout(0, 0, r - l, b - t)
+        }
+    }
+
+    override fun shouldDelayChildPressedState(): Boolean {
+        return false
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import androidx.annotation.ColorInt
+
+/**
+ * TabStyle
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 11:48:03
+ * Major Function：<b>The visual state of one tab</b>
+ *
+ * Written by a [TabTransition]. Instances are reused from frame to frame, the tab strip compares
+ * the resolved style with the last applied one and only touches the tab when they differ.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+class TabStyle {
+    @ColorInt
+    var textColor = 0
+    var textSize = 0f
+    var bold = false
+    var selected = false
+
+    /**
+     * The color the start of the text is drawn in, up to [fillFraction] of its width.
+     */
+    @ColorInt
+    var fillColor = 0
+
+    /**
+     * The fraction of the text width drawn in [fillColor], 0 for no fill.
+     */
+    var fillFraction = 0f
+
+    fun set(other: TabStyle) {
+        textColor = other.textColor
+        textSize = other.textSize
+        bold = other.bold
+        selected = other.selected
+        fillColor = other.fillColor
+        fillFraction = other.fillFraction
+    }
+
+    fun isSameAs(other: TabStyle): Boolean {
+        return textColor == other.textColor
+                && textSize == other.textSize
+                && bold == other.bold
+                && selected == other.selected
+                && fillColor == other.fillColor
+                && fillFraction == other.fillFraction
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import android.annotation.SuppressLint
+import android.content.Context
+import android.graphics.Canvas
+import android.text.Layout
+import android.util.AttributeSet
+import android.view.Gravity
+import android.widget.TextView
+import androidx.annotation.ColorInt
+import kotlin.math.ceil
+import kotlin.math.max
+
+/**
+ * TabTextView
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 15:08:52
+ * Major Function：<b>The text of a tab, with draw-time color, scale and fake bold</b>
+ *
+ * The tab color, scale and fake bold are applied to the paint when the text layout is drawn,
+ * so changing them never allocates a ColorStateList nor requests a layout. The width and the
+ * height of the largest scale are reserved when measuring, so scaling does not move the
+ * neighbouring tabs. [SlidingTabLayout] creates it for its default tabs, and a custom
+ * stl_tabLayout can use it as the view with the id sliding_tab_text.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+@SuppressLint("AppCompatCustomView")
+open class TabTextView @JvmOverloads constructor(
+    context: Context,
+    attrs: AttributeSet? = null,
+    defStyleAttr: Int = android.R.attr.textViewStyle
+) : TextView(context, attrs, defStyleAttr) {
+
+    @ColorInt
+    private var tabTextColor = currentTextColor
+    private var tabTextScale = 1f
+    private var maxTabTextScale = 1f
+    private var tabTextBold = false
+
+    @ColorInt
+    private var tabFillColor = 0
+    private var tabFillFraction = 0f
+    private var drawsLayout = false
+
+    @ColorInt
+    fun getTabTextColor(): Int {
+        return tabTextColor
+    }
+
+    /**
+     * Set the color the text is drawn with.
+     *
+     * @param color A color value in the form 0xAARRGGBB.
+     */
+    fun setTabTextColor(@ColorInt color: Int) {
+        if (tabTextColor == color) {
+            return
+        }
+        tabTextColor = color
+        if (drawsLayout) {
+            invalidate()
+        } else {
+            setTextColor(color)
+        }
+    }
+
+    fun getTabTextScale(): Float {
+        return tabTextScale
+    }
+
+    /**
+     * Set the scale the text is drawn with, around the center of the text.
+     *
+     * @param scale The scale, 1 draws the text at its text size.
+     */
+    fun setTabTextScale(scale: Float) {
+        if (tabTextScale != scale) {
+            tabTextScale = scale
+            invalidate()
+        }
+    }
+
+    /**
+     * Set the largest scale the text is drawn with, its size is reserved when measuring.
+     *
+     * @param scale The largest scale.
+     */
+    fun setMaxTabTextScale(scale: Float) {
+        if (maxTabTextScale != scale) {
+            maxTabTextScale = scale
+            requestLayout()
+        }
+    }
+
+    /**
+     * Set whether the text is drawn with fake bold.
+     *
+     * @param bold true if the text must be fake bold, false otherwise.
+     */
+    fun setTabTextBold(bold: Boolean) {
+        if (tabTextBold != bold) {
+            tabTextBold = bold
+            invalidate()
+        }
+    }
+
+    /**
+     * Draw the start of the text, the fraction of its width, in the fill color. The fill is
+     * ignored while the text has compound drawables.
+     *
+     * @param color    A color value in the form 0xAARRGGBB.
+     * @param fraction The filled fraction of the text width, 0 for no fill.
+     */
+    fun setTabTextFill(@ColorInt color: Int, fraction: Float) {
+        if (tabFillColor != color || tabFillFraction != fraction) {
+            tabFillColor = color
+            tabFillFraction = fraction
+            invalidate()
+        }
+    }
+
+    /**
+     * Return whether [setTabTextFill] is drawn.
+     */
+    fun canDrawTabTextFill(): Boolean {
+        return drawsLayout
+    }
+
+    override fun onMeasure(widthMeasureSpec: Int, heightMeasureSpec: Int) {
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec)
+        // Compound drawables are left to TextView, checked here as their getter allocates.
+        val drawsLayout = !hasCompoundDrawables()
+        if (this.drawsLayout && !drawsLayout) {
+            setTextColor(tabTextColor)
+        }
+        this.drawsLayout = drawsLayout
+        val layout = layout
+        if (maxTabTextScale <= 1f || layout == null) {
+            return
+        }
+        val width = ceil(layout.width * maxTabTextScale).toInt() +
+                compoundPaddingLeft + compoundPaddingRight
+        val height = ceil(layout.height * maxTabTextScale).toInt() +
+                extendedPaddingTop + extendedPaddingBottom
+        val reservedWidth = resolveSize(max(width, measuredWidth), widthMeasureSpec)
+        val reservedHeight = resolveSize(max(height, measuredHeight), heightMeasureSpec)
+        if (reservedWidth != measuredWidth) {
+            // Lay the text out at the reserved width, so its gravity places it in there.
+            super.onMeasure(
+                MeasureSpec.makeMeasureSpec(reservedWidth, MeasureSpec.EXACTLY),
+                heightMeasureSpec
+            )
+        }
+        setMeasuredDimension(reservedWidth, reservedHeight)
+    }
+
+    override fun onDraw(canvas: Canvas) {
+        val layout = layout
+        paint.isFakeBoldText = tabTextBold
+        // Compound drawables and hints are left to TextView.
+        if (layout == null || text.isEmpty() || !drawsLayout) {
+            val saveCount = canvas.save()
+            canvas.scale(tabTextScale, tabTextScale, width / 2f, height / 2f)
+            super.onDraw(canvas)
+            canvas.restoreToCount(saveCount)
+            return
+        }
+        val left = compoundPaddingLeft.toFloat()
+        val right = (width - compoundPaddingRight).toFloat()
+        val top = extendedPaddingTop.toFloat()
+        val bottom = (height - extendedPaddingBottom).toFloat()
+        val textTop = when (gravity and Gravity.VERTICAL_GRAVITY_MASK) {
+            Gravity.TOP -> top
+            Gravity.BOTTOM -> bottom - layout.height
+            else -> top + (bottom - top - layout.height) / 2
+        }
+        val textPaint = paint
+        textPaint.drawableState = drawableState
+        val saveCount = canvas.save()
+        canvas.clipRect(left, top, right, bottom)
+        canvas.translate(left, textTop)
+        if (tabTextScale != 1f) {
+            canvas.scale(tabTextScale, tabTextScale, getTextCenterX(layout), layout.height / 2f)
+        }
+        if (tabFillFraction <= 0f) {
+            textPaint.color = tabTextColor
+            layout.draw(canvas)
+        } else {
+            // The filled start and the rest of the text, each clipped to its own part.
+            val textLeft = layout.getLineLeft(0)
+            val fillRight = textLeft + (layout.getLineRight(0) - textLeft) * tabFillFraction
+            textPaint.color = tabFillColor
+            canvas.save()
+            canvas.clipRect(0f, 0f, fillRight, layout.height.toFloat())
+            layout.draw(canvas)
+            canvas.restore()
+            if (tabFillFraction < 1f) {
+                textPaint.color = tabTextColor
+                canvas.clipRect(fillRight, 0f, layout.width.toFloat(), layout.height.toFloat())
+                layout.draw(canvas)
+            }
+        }
+        canvas.restoreToCount(saveCount)
+    }
+
+    /**
+     * Return the horizontal center of the text in the layout, the text scales around it.
+     */
+    private fun getTextCenterX(layout: Layout): Float {
+        if (layout.lineCount != 1) {
+            return layout.width / 2f
+        }
+        return (layout.getLineLeft(0) + layout.getLineRight(0)) / 2
+    }
+
+    private fun hasCompoundDrawables(): Boolean {
+        for (drawable in compoundDrawables) {
+            if (drawable != null) {
+                return true
+            }
+        }
+        return false
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.Typeface
+import android.os.Build
+import android.text.Layout
+import android.text.StaticLayout
+import android.text.TextPaint
+import android.view.Gravity
+import androidx.annotation.ColorInt
+import kotlin.math.ceil
+import kotlin.math.max
+
+/**
+ * TabTitleRenderer
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 10:12:40
+ * Major Function：<b>Draws all tab titles of a [SlidingTabStrip] from cached [StaticLayout]s</b>
+ *
+ * All titles share one [TextPaint]. Layouts are built once at the normal text size, the
+ * per-tab size is applied as a canvas scale when drawing, so changing it never needs a layout.
+ * The layouts can also be built off the main thread with [buildLayouts] and handed over.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+internal class TabTitleRenderer {
+    val textPaint = TextPaint(Paint.ANTI_ALIAS_FLAG)
+    private var layouts = arrayOfNulls<StaticLayout>(0)
+    private var titles = arrayOfNulls<CharSequence>(0)
+    private var textColors = IntArray(0)
+    private var textSizes = FloatArray(0)
+    private var textBolds = BooleanArray(0)
+    private var fillColors = IntArray(0)
+    private var fillFractions = FloatArray(0)
+    private var baseTextSize = 0f
+    private var maxTextSize = 0f
+
+    fun getCount(): Int {
+        return layouts.size
+    }
+
+    fun getTitle(index: Int): CharSequence? {
+        return titles[index]
+    }
+
+    /**
+     * Set the titles, with the layouts built for them by [buildLayouts] if any. The layouts are
+     * only used when they were built with the current text size and typeface.
+     */
+    fun setTitles(
+        titles: List<CharSequence?>,
+        @ColorInt textColor: Int,
+        bold: Boolean,
+        layouts: Array<StaticLayout?>? = null
+    ) {
+        val count = titles.size
+        this.titles = titles.toTypedArray()
+        textColors = IntArray(count) { textColor }
+        textSizes = FloatArray(count) { baseTextSize }
+        textBolds = BooleanArray(count) { bold }
+        fillColors = IntArray(count)
+        fillFractions = FloatArray(count)
+        val paint = layouts?.firstOrNull { it != null }?.paint
+        if (layouts != null && layouts.size == count && (paint == null
+                    || (paint.textSize == baseTextSize && paint.typeface == textPaint.typeface))
+        ) {
+            this.layouts = layouts
+        } else {
+            this.layouts = arrayOfNulls(count)
+            rebuildLayouts()
+        }
+    }
+
+    /**
+     * Return a copy of the paint the layouts are built with, for [buildLayouts].
+     */
+    fun createLayoutPaint(): TextPaint {
+        val paint = TextPaint(textPaint)
+        paint.textSize = baseTextSize
+        paint.isFakeBoldText = false
+        return paint
+    }
+
+    fun clear() {
+        setTitles(emptyList(), 0, false)
+    }
+
+    /**
+     * Set the normal and the largest text size. Layouts are only rebuilt when the normal size
+     * changes.
+     */
+    fun setTextSizes(textSize: Float, selectedTextSize: Float) {
+        maxTextSize = max(textSize, selectedTextSize)
+        if (baseTextSize != textSize) {
+            for (i in textSizes.indices) {
+                if (textSizes[i] == baseTextSize) {
+                    textSizes[i] = textSize
+                }
+            }
+            baseTextSize = textSize
+            rebuildLayouts()
+        }
+    }
+
+    fun setTypeface(typeface: Typeface?) {
+        if (textPaint.typeface != typeface) {
+            textPaint.typeface = typeface
+            rebuildLayouts()
+        }
+    }
+
+    fun setTextColor(index: Int, @ColorInt color: Int) {
+        textColors[index] = color
+    }
+
+    @ColorInt
+    fun getTextColor(index: Int): Int {
+        return textColors[index]
+    }
+
+    fun getTextSize(index: Int): Float {
+        return textSizes[index]
+    }
+
+    fun setTextSize(index: Int, size: Float) {
+        textSizes[index] = size
+    }
+
+    fun setTextBold(index: Int, bold: Boolean) {
+        textBolds[index] = bold
+    }
+
+    /**
+     * Draw the start of the specified title, the fraction of its width, in the fill color.
+     */
+    fun setTextFill(index: Int, @ColorInt color: Int, fraction: Float) {
+        fillColors[index] = color
+        fillFractions[index] = fraction
+    }
+
+    /**
+     * Return the width the specified title needs at its largest text size.
+     */
+    fun getReservedWidth(index: Int): Float {
+        val layout = layouts[index] ?: return 0f
+        return layout.width * getMaxScale()
+    }
+
+    /**
+     * Return the height the tallest title needs at its largest text size.
+     */
+    fun getReservedHeight(): Float {
+        var height = 0
+        for (layout in layouts) {
+            if (layout != null && layout.height > height) {
+                height = layout.height
+            }
+        }
+        return height * getMaxScale()
+    }
+
+    /**
+     * Draw the specified title inside the given content bounds.
+     */
+    fun draw(
+        canvas: Canvas,
+        index: Int,
+        left: Float,
+        top: Float,
+        right: Float,
+        bottom: Float,
+        gravity: Int
+    ) {
+        val layout = layouts[index] ?: return
+        val scale = if (baseTextSize > 0) textSizes[index] / baseTextSize else 1f
+        val scaledHeight = layout.height * scale
+        val centerX = (left + right) / 2
+        val centerY = when (gravity and Gravity.VERTICAL_GRAVITY_MASK) {
+            Gravity.TOP -> top + scaledHeight / 2
+            Gravity.BOTTOM -> bottom - scaledHeight / 2
+            else -> (top + bottom) / 2
+        }
+        // A layout draws with the paint it was built with.
+        val paint = layout.paint
+        paint.isFakeBoldText = textBolds[index]
+        val saveCount = canvas.save()
+        canvas.translate(centerX, centerY)
+        canvas.scale(scale, scale)
+        canvas.translate(-layout.width / 2f, -layout.height / 2f)
+        val fillFraction = fillFractions[index]
+        if (fillFraction <= 0f) {
+            paint.color = textColors[index]
+            layout.draw(canvas)
+        } else {
+            // The filled start and the rest of the title, each clipped to its own part.
+            val fillRight = layout.width * fillFraction
+            paint.color = fillColors[index]
+            canvas.save()
+            canvas.clipRect(0f, 0f, fillRight, layout.height.toFloat())
+            layout.draw(canvas)
+            canvas.restore()
+            if (fillFraction < 1f) {
+                paint.color = textColors[index]
+                canvas.clipRect(fillRight, 0f, layout.width.toFloat(), layout.height.toFloat())
+                layout.draw(canvas)
+            }
+        }
+        canvas.restoreToCount(saveCount)
+    }
+
+    private fun getMaxScale(): Float {
+        return if (baseTextSize > 0) max(1f, maxTextSize / baseTextSize) else 1f
+    }
+
+    private fun rebuildLayouts() {
+        textPaint.textSize = baseTextSize
+        textPaint.isFakeBoldText = false
+        for (i in titles.indices) {
+            layouts[i] = createLayout(titles[i] ?: "", textPaint)
+        }
+    }
+
+    companion object {
+        /**
+         * Build the layouts of the titles with the paint from [createLayoutPaint], safe to call
+         * off the main thread since the paint is not shared.
+         */
+        fun buildLayouts(titles: List<CharSequence?>, paint: TextPaint): Array<StaticLayout?> {
+            return Array(titles.size) { createLayout(titles[it] ?: "", paint) }
+        }
+
+        private fun createLayout(text: CharSequence, paint: TextPaint): StaticLayout {
+            val width = ceil(Layout.getDesiredWidth(text, paint)).toInt()
+            return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                StaticLayout.Builder.obtain(text, 0, text.length, paint, width)
+                    .setIncludePad(false)
+                    .build()
+            } else {
+                @Suppress("DEPRECATION")
+                StaticLayout(text, paint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false)
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import androidx.annotation.ColorInt
+
+/**
+ * TabTransition
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 15:52:10
+ * Major Function：<b>Decides how every tab looks for the current swipe and selection</b>
+ *
+ * [resolveStyle] is called for the tabs whose style may have changed, at most once per frame
+ * and tab. It must not allocate: it only reads the [State] and writes the reused [TabStyle],
+ * the strip compares the result with the applied style and only touches tabs that differ.
+ *
+ * By default a pass only resolves the selected tab and the two swiped tabs, before and after
+ * the change. A transition that styles other tabs from the state, by their distance to the
+ * swipe for instance, must return true from [resolvesAllTabs].
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+interface TabTransition {
+
+    /**
+     * Write the style the tab at position must have into style. Every field of style must be
+     * written, the record is reused for all tabs.
+     *
+     * @param position The tab position.
+     * @param state    The current swipe and selection.
+     * @param style    The reused style record to write.
+     */
+    fun resolveStyle(position: Int, state: State, style: TabStyle)
+
+    /**
+     * Return whether [resolveStyle] depends on [State.getPositionOffset]. When false, no tab
+     * is resolved while the pager is swiped, only when the selection or the scroll state
+     * changes.
+     */
+    fun dependsOnOffset(): Boolean
+
+    /**
+     * Return whether every tab must be resolved by each pass. When false, only the selected
+     * and the swiped tabs are, the others keep the style they had.
+     */
+    fun resolvesAllTabs(): Boolean {
+        return false
+    }
+
+    /**
+     * The current swipe and selection of a tab strip, read by [resolveStyle]. One instance is
+     * reused by every pass.
+     */
+    class State internal constructor(private val fillSupport: (Int) -> Boolean) {
+        internal lateinit var palette: TabPaletteCache
+        private var selectedPosition = 0
+        private var firstPagePosition = 0
+        private var positionOffset = 0f
+        private var scrolling = false
+
+        @ColorInt
+        private var normalTextColor = 0
+        private var normalTextSize = 0f
+        private var selectedTextSize = 0f
+        private var selectedTextBold = false
+
+        internal fun set(
+            selectedPosition: Int,
+            firstPagePosition: Int,
+            positionOffset: Float,
+            scrolling: Boolean,
+            @ColorInt normalTextColor: Int,
+            normalTextSize: Float,
+            selectedTextSize: Float,
+            selectedTextBold: Boolean
+        ) {
+            this.selectedPosition = selectedPosition
+            this.firstPagePosition = firstPagePosition
+            this.positionOffset = positionOffset
+            this.scrolling = scrolling
+            this.normalTextColor = normalTextColor
+            this.normalTextSize = normalTextSize
+            this.selectedTextSize = selectedTextSize
+            this.selectedTextBold = selectedTextBold
+        }
+
+        fun getSelectedPosition(): Int {
+            return selectedPosition
+        }
+
+        /**
+         * Return the position of the first page currently being displayed, the page at
+         * position + 1 is visible if [getPositionOffset] is nonzero.
+         */
+        fun getFirstPagePosition(): Int {
+            return firstPagePosition
+        }
+
+        /**
+         * Return the offset from [getFirstPagePosition], in [0, 1).
+         */
+        fun getPositionOffset(): Float {
+            return positionOffset
+        }
+
+        /**
+         * Return whether the pager is dragging or settling.
+         */
+        fun isScrolling(): Boolean {
+            return scrolling
+        }
+
+        @ColorInt
+        fun getNormalTextColor(): Int {
+            return normalTextColor
+        }
+
+        @ColorInt
+        fun getSelectedTextColor(position: Int): Int {
+            return palette.getTextColor(position)
+        }
+
+        /**
+         * Return the color of the first page text while it is left, from its selected color at
+         * offset 0 to the normal color at offset 1.
+         */
+        @ColorInt
+        fun getLeavingTextColor(): Int {
+            return palette.getLeavingColor(firstPagePosition, positionOffset)
+        }
+
+        /**
+         * Return the color of the page text after the first page while it is entered, from the
+         * normal color at offset 0 to its selected color at offset 1.
+         */
+        @ColorInt
+        fun getEnteringTextColor(): Int {
+            return palette.getEnteringColor(firstPagePosition, positionOffset)
+        }
+
+        fun getNormalTextSize(): Float {
+            return normalTextSize
+        }
+
+        fun getSelectedTextSize(): Float {
+            return selectedTextSize
+        }
+
+        /**
+         * Return whether the tab at position can draw [TabStyle.fillColor]. Otherwise the fill
+         * is ignored and only [TabStyle.textColor] is drawn.
+         */
+        fun canDrawFill(position: Int): Boolean {
+            return fillSupport(position)
+        }
+
+        /**
+         * Write the style of the selection alone into style, without any swipe.
+         */
+        fun resolveSelectionStyle(position: Int, style: TabStyle) {
+            val selected = position == selectedPosition
+            style.selected = selected
+            style.bold = selected && selectedTextBold
+            style.textSize = if (selected) selectedTextSize else normalTextSize
+            style.textColor = if (selected) palette.getTextColor(position) else normalTextColor
+            style.fillColor = 0
+            style.fillFraction = 0f
+        }
+    }
+
+    companion object {
+        /**
+         * The swiped tab texts blend from one color to the other, the default.
+         */
+        @JvmField
+        val BLEND: TabTransition = object : TabTransition {
+            override fun resolveStyle(position: Int, state: State, style: TabStyle) {
+                state.resolveSelectionStyle(position, style)
+                if (!state.isScrolling()) {
+                    return
+                }
+                val firstPagePosition = state.getFirstPagePosition()
+                if (position == firstPagePosition) {
+                    style.textColor = state.getLeavingTextColor()
+                } else if (position == firstPagePosition + 1 && state.getPositionOffset() > 0f) {
+                    style.textColor = state.getEnteringTextColor()
+                }
+            }
+
+            override fun dependsOnOffset(): Boolean {
+                return true
+            }
+        }
+
+        /**
+         * The tabs only change when a page is selected, nothing is done while swiping.
+         */
+        @JvmField
+        val DISCRETE: TabTransition = object : TabTransition {
+            override fun resolveStyle(position: Int, state: State, style: TabStyle) {
+                state.resolveSelectionStyle(position, style)
+            }
+
+            override fun dependsOnOffset(): Boolean {
+                return false
+            }
+        }
+
+        /**
+         * The swiped tab texts are filled with the other color from their start, as far as the
+         * page is dragged. Tabs that can not draw a fill blend as [BLEND] does.
+         */
+        @JvmField
+        val FILL: TabTransition = object : TabTransition {
+            override fun resolveStyle(position: Int, state: State, style: TabStyle) {
+                if (!state.canDrawFill(position)) {
+                    BLEND.resolveStyle(position, state, style)
+                    return
+                }
+                state.resolveSelectionStyle(position, style)
+                if (!state.isScrolling()) {
+                    return
+                }
+                // The normal color flows in from the start of the left tab, the selected color
+                // from the start of the entered tab.
+                val firstPagePosition = state.getFirstPagePosition()
+                val positionOffset = state.getPositionOffset()
+                if (position == firstPagePosition) {
+                    style.textColor = state.getSelectedTextColor(position)
+                    style.fillColor = state.getNormalTextColor()
+                    style.fillFraction = positionOffset
+                } else if (position == firstPagePosition + 1 && positionOffset > 0f) {
+                    style.textColor = state.getNormalTextColor()
+                    style.fillColor = state.getSelectedTextColor(position)
+                    style.fillFraction = positionOffset
+                }
+            }
+
+            override fun dependsOnOffset(): Boolean {
+                return true
+            }
+        }
+    }
+}
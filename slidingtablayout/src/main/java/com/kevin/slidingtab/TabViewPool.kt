@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import android.util.SparseArray
+import android.util.SparseIntArray
+import android.view.View
+import androidx.annotation.LayoutRes
+
+/**
+ * TabViewPool
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 19:12:08
+ * Major Function：<b>Tab views kept for reuse, shareable between SlidingTabLayouts</b>
+ *
+ * The tab views a [SlidingTabLayout] removes are kept here by their tab layout resource, 0
+ * for the default [TabTextView], and taken again before a new tab view is inflated. Set one
+ * pool on the tab layouts of a screen through [SlidingTabLayout.setTabViewPool] to share
+ * the views between them. A view keeps the context it was inflated with, so only share a pool
+ * within one activity.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+class TabViewPool {
+    private val scrap = SparseArray<ArrayList<View>>()
+    private val maxScrap = SparseIntArray()
+
+    /**
+     * Set how many views of the specified tab layout are kept at most.
+     *
+     * @param layoutRes The tab layout resource, 0 for the default tab view.
+     * @param max       The maximum count of views kept.
+     */
+    fun setMaxRecycledViews(@LayoutRes layoutRes: Int, max: Int) {
+        maxScrap.put(layoutRes, max)
+        val views = scrap.get(layoutRes) ?: return
+        while (views.size > max) {
+            views.removeAt(views.size - 1)
+        }
+    }
+
+    /**
+     * Take a view of the specified tab layout out of the pool.
+     *
+     * @param layoutRes The tab layout resource, 0 for the default tab view.
+     * @return A view to rebind, or null if the pool has none.
+     */
+    fun getRecycledView(@LayoutRes layoutRes: Int): View? {
+        val views = scrap.get(layoutRes)
+        if (views == null || views.isEmpty()) {
+            return null
+        }
+        return views.removeAt(views.size - 1)
+    }
+
+    /**
+     * Put a view of the specified tab layout into the pool, it is dropped when the pool
+     * already keeps the maximum count of views.
+     *
+     * @param layoutRes The tab layout resource, 0 for the default tab view.
+     * @param view      The view, it must have been removed from its parent.
+     */
+    fun putRecycledView(@LayoutRes layoutRes: Int, view: View) {
+        require(view.parent == null) { "The tab view must be removed from its parent first" }
+        var views = scrap.get(layoutRes)
+        if (views == null) {
+            views = ArrayList()
+            scrap.put(layoutRes, views)
+        }
+        if (views.size < maxScrap.get(layoutRes, DEFAULT_MAX_RECYCLED_VIEWS)) {
+            views.add(view)
+        }
+    }
+
+    fun getRecycledViewCount(@LayoutRes layoutRes: Int): Int {
+        return scrap.get(layoutRes)?.size ?: 0
+    }
+
+    /**
+     * Drop all the views kept.
+     */
+    fun clear() {
+        scrap.clear()
+    }
+
+    companion object {
+        private const val DEFAULT_MAX_RECYCLED_VIEWS = 16
+    }
+}
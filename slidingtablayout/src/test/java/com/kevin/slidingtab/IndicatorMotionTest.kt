@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * IndicatorMotionTest
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-18 00:47:52
+ * Major Function：<b>Checks the lookup tables of [IndicatorMotion]</b>
+ *
+ * A curve is sampled at 129 evenly spaced offsets, both ends included. Offsets between two
+ * samples are interpolated linearly, offsets out of [0, 1] read the end samples.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+class IndicatorMotionTest {
+
+    @Test
+    fun curveIsSampledAtOneHundredTwentyNineOffsets() {
+        val offsets = ArrayList<Float>()
+        IndicatorMotion.create({ offsets.add(it); it }, { it })
+        assertEquals(129, offsets.size)
+        for (i in offsets.indices) {
+            assertEquals(i / 128f, offsets[i], DELTA)
+        }
+    }
+
+    @Test
+    fun endpointsReadEndSamples() {
+        val motion = IndicatorMotion.create({ 0.2f + it * 0.5f }, { 1 - it })
+        assertEquals(0.2f, motion.getStartFraction(0f), DELTA)
+        assertEquals(0.7f, motion.getStartFraction(1f), DELTA)
+        assertEquals(1f, motion.getEndFraction(0f), DELTA)
+        assertEquals(0f, motion.getEndFraction(1f), DELTA)
+        assertEquals(0.2f, motion.getStartFraction(-0.5f), DELTA)
+        assertEquals(0.7f, motion.getStartFraction(1.5f), DELTA)
+    }
+
+    @Test
+    fun offsetsBetweenSamplesAreInterpolated() {
+        // A step between samples 64 and 65, at 0.5 and 0.5078125.
+        val motion = IndicatorMotion.create({ if (it > 0.5f) 1f else 0f }, { it })
+        assertEquals(0f, motion.getStartFraction(0.5f), DELTA)
+        assertEquals(0.5f, motion.getStartFraction(0.5f + 1 / 256f), DELTA)
+        assertEquals(1f, motion.getStartFraction(0.5f + 1 / 128f), DELTA)
+    }
+
+    @Test
+    fun linearFollowsOffset() {
+        for (offset in floatArrayOf(0f, 0.1f, 0.33f, 0.5f, 0.87f, 1f)) {
+            assertEquals(offset, IndicatorMotion.LINEAR.getStartFraction(offset), DELTA)
+            assertEquals(offset, IndicatorMotion.LINEAR.getEndFraction(offset), DELTA)
+        }
+        assertFalse(IndicatorMotion.LINEAR.hasWidthScale())
+        assertEquals(1f, IndicatorMotion.LINEAR.getWidthScale(0.5f), DELTA)
+    }
+
+    @Test
+    fun creepLeadsWithTheEndEdge() {
+        assertEquals(0.25f, IndicatorMotion.CREEP.getStartFraction(0.5f), DELTA)
+        assertEquals(0.75f, IndicatorMotion.CREEP.getEndFraction(0.5f), DELTA)
+        assertEquals(1f, IndicatorMotion.CREEP.getStartFraction(1f), DELTA)
+    }
+
+    @Test
+    fun wormStretchesThenFollows() {
+        assertEquals(0f, IndicatorMotion.WORM.getStartFraction(0.25f), DELTA)
+        assertEquals(0.5f, IndicatorMotion.WORM.getEndFraction(0.25f), DELTA)
+        assertEquals(0.5f, IndicatorMotion.WORM.getStartFraction(0.75f), DELTA)
+        assertEquals(1f, IndicatorMotion.WORM.getEndFraction(0.75f), DELTA)
+    }
+
+    @Test
+    fun dotExpandShrinksHalfway() {
+        assertTrue(IndicatorMotion.DOT_EXPAND.hasWidthScale())
+        assertEquals(1f, IndicatorMotion.DOT_EXPAND.getWidthScale(0f), DELTA)
+        assertEquals(0f, IndicatorMotion.DOT_EXPAND.getWidthScale(0.5f), DELTA)
+        assertEquals(1f, IndicatorMotion.DOT_EXPAND.getWidthScale(1f), DELTA)
+    }
+
+    companion object {
+        private const val DELTA = 0.001f
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+/**
+ * TabGeometryTest
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-17 23:18:40
+ * Major Function：<b>Checks [TabGeometry] against the formulas SlidingTabStrip drew with</b>
+ *
+ * The tabs of the fixed mode split the width equally, the tabs of the scrollable mode keep
+ * their own widths. Both lie edge to edge, the first and the last include the widget padding.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+class TabGeometryTest {
+
+    @Test
+    fun fixedModeIndicatorCoversTab() {
+        val geometry = createGeometry(floatArrayOf(100f, 100f, 100f, 100f))
+        for (i in 0 until 4) {
+            assertEquals(i * 100f, geometry.getIndicatorStart(i), DELTA)
+            assertEquals(i * 100f + 100f, geometry.getIndicatorEnd(i), DELTA)
+        }
+    }
+
+    @Test
+    fun scrollableModeIndicatorWidthIsCentered() {
+        val geometry = createGeometry(floatArrayOf(60f, 140f, 90f))
+        geometry.indicatorWidth = 20f
+        geometry.compute()
+        val lefts = floatArrayOf(0f, 60f, 200f)
+        val rights = floatArrayOf(60f, 200f, 290f)
+        for (i in 0 until 3) {
+            val middle = (lefts[i] + rights[i]) / 2
+            assertEquals(middle - 10f, geometry.getIndicatorStart(i), DELTA)
+            assertEquals(middle + 10f, geometry.getIndicatorEnd(i), DELTA)
+        }
+    }
+
+    @Test
+    fun indicatorWidthRatioKeepsCenter() {
+        val geometry = createGeometry(floatArrayOf(60f, 140f))
+        geometry.indicatorWidthRatio = 0.5f
+        geometry.compute()
+        assertEquals(15f, geometry.getIndicatorStart(0), DELTA)
+        assertEquals(45f, geometry.getIndicatorEnd(0), DELTA)
+        assertEquals(95f, geometry.getIndicatorStart(1), DELTA)
+        assertEquals(165f, geometry.getIndicatorEnd(1), DELTA)
+    }
+
+    @Test
+    fun edgePaddingIsLeftOutOfEdgeTabs() {
+        val geometry = createGeometry(floatArrayOf(130f, 100f, 120f))
+        geometry.leftPadding = 30f
+        geometry.rightPadding = 20f
+        geometry.compute()
+        assertEquals(30f, geometry.getIndicatorStart(0), DELTA)
+        assertEquals(130f, geometry.getIndicatorEnd(0), DELTA)
+        assertEquals(30f, geometry.getContentLeft(0), DELTA)
+        assertEquals(130f, geometry.getIndicatorStart(1), DELTA)
+        assertEquals(230f, geometry.getIndicatorEnd(1), DELTA)
+        assertEquals(230f, geometry.getIndicatorStart(2), DELTA)
+        assertEquals(330f, geometry.getIndicatorEnd(2), DELTA)
+        assertEquals(330f, geometry.getContentRight(2), DELTA)
+        // The tab bounds and the scroll center still include the padding.
+        assertEquals(0f, geometry.getTabLeft(0), DELTA)
+        assertEquals(350f, geometry.getTabRight(2), DELTA)
+        assertEquals(290f, geometry.getScrollCenter(2, 0f), DELTA)
+    }
+
+    @Test
+    fun scrollCenterFollowsSwipe() {
+        val widths = floatArrayOf(60f, 140f, 90f)
+        val geometry = createGeometry(widths)
+        var left = 0f
+        for (i in 0 until widths.size - 1) {
+            for (offset in floatArrayOf(0f, 0.25f, 0.5f, 1f)) {
+                // The center SlidingTabLayout scrolled to before the geometry was cached.
+                val width = widths[i] + offset * (widths[i + 1] - widths[i])
+                val expected = left + widths[i] * offset + width / 2
+                assertEquals(expected, geometry.getScrollCenter(i, offset), DELTA)
+            }
+            left += widths[i]
+        }
+    }
+
+    @Test
+    fun lastTabIgnoresOffset() {
+        val geometry = createGeometry(floatArrayOf(60f, 140f, 90f))
+        assertEquals(245f, geometry.getScrollCenter(2, 0f), DELTA)
+        assertEquals(245f, geometry.getScrollCenter(2, 0.5f), DELTA)
+    }
+
+    private fun createGeometry(widths: FloatArray): TabGeometry {
+        val geometry = TabGeometry()
+        geometry.setCount(widths.size)
+        var left = 0f
+        for (i in widths.indices) {
+            geometry.setTabBounds(i, left, left + widths[i])
+            left += widths[i]
+        }
+        geometry.compute()
+        return geometry
+    }
+
+    companion object {
+        private const val DELTA = 0.001f
+    }
+}
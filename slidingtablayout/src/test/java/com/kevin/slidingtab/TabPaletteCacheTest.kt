@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import com.kevin.slidingtab.SlidingTabLayout.TabPalette
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+/**
+ * TabPaletteCacheTest
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-18 00:14:27
+ * Major Function：<b>Checks the transition tables of [TabPaletteCache]</b>
+ *
+ * The tables hold 65 entries per transition, an offset reads the nearest entry. The straight
+ * blend interpolates the encoded channels, the linear-light blend interpolates their light.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+class TabPaletteCacheTest {
+
+    @Test
+    fun leavingColorRunsFromSelectedToNormal() {
+        val cache = createCache(WHITE, RED)
+        assertEquals(WHITE, cache.getLeavingColor(0, 0f))
+        assertEquals(0xFF7F7F7F.toInt(), cache.getLeavingColor(0, 0.5f))
+        assertEquals(BLACK, cache.getLeavingColor(0, 1f))
+    }
+
+    @Test
+    fun enteringColorRunsFromNormalToSelected() {
+        val cache = createCache(WHITE, RED)
+        assertEquals(BLACK, cache.getEnteringColor(0, 0f))
+        assertEquals(0xFF7F0000.toInt(), cache.getEnteringColor(0, 0.5f))
+        assertEquals(RED, cache.getEnteringColor(0, 1f))
+    }
+
+    @Test
+    fun pageColorRunsBetweenThePair() {
+        val cache = createCache(WHITE, RED)
+        assertEquals(WHITE, cache.getPageColor(0, 0f))
+        assertEquals(0xFFFF7F7F.toInt(), cache.getPageColor(0, 0.5f))
+        assertEquals(RED, cache.getPageColor(0, 1f))
+        // The last tab has no next tab, its page color stays.
+        assertEquals(RED, cache.getPageColor(1, 0.5f))
+    }
+
+    @Test
+    fun offsetReadsNearestOfSixtyFiveEntries() {
+        val cache = createCache(WHITE, RED)
+        // 0.3 is read from entry 19, at 19 / 64 = 0.296875.
+        assertEquals(0xFFB3B3B3.toInt(), cache.getLeavingColor(0, 0.3f))
+        // Entry 1 sits at 1 / 64, offsets below 1 / 128 still read entry 0.
+        assertEquals(0xFFFBFBFB.toInt(), cache.getLeavingColor(0, 1f / 64))
+        assertEquals(WHITE, cache.getLeavingColor(0, 0.007f))
+        // Offsets out of range read the end entries.
+        assertEquals(WHITE, cache.getLeavingColor(0, -0.5f))
+        assertEquals(BLACK, cache.getLeavingColor(0, 1.5f))
+    }
+
+    @Test
+    fun linearBlendingMixesLight() {
+        val cache = createCache(WHITE, RED)
+        cache.setLinearBlending(true)
+        assertEquals(WHITE, cache.getLeavingColor(0, 0f))
+        // Half the light of white is encoded as 188, not 127.
+        assertEquals(0xFFBCBCBC.toInt(), cache.getLeavingColor(0, 0.5f))
+        assertEquals(BLACK, cache.getLeavingColor(0, 1f))
+        cache.setLinearBlending(false)
+        assertEquals(0xFF7F7F7F.toInt(), cache.getLeavingColor(0, 0.5f))
+    }
+
+    @Test
+    fun linearBlendingKeepsAlphaStraight() {
+        val cache = createCache(0x00FFFFFF, WHITE)
+        cache.setLinearBlending(true)
+        cache.setNormalTextColor(0x00FFFFFF)
+        assertEquals(0x7FFFFFFF, cache.getEnteringColor(0, 0.5f))
+    }
+
+    @Test
+    fun normalColorChangeRebuildsTables() {
+        val cache = createCache(WHITE, RED)
+        assertEquals(BLACK, cache.getLeavingColor(0, 1f))
+        cache.setNormalTextColor(RED)
+        assertEquals(RED, cache.getLeavingColor(0, 1f))
+        assertEquals(RED, cache.getEnteringColor(0, 0.5f))
+    }
+
+    private fun createCache(vararg colors: Int): TabPaletteCache {
+        val cache = TabPaletteCache()
+        cache.setNormalTextColor(BLACK)
+        cache.resolve(object : TabPalette {
+            override fun getTextColor(position: Int): Int {
+                return colors[position]
+            }
+
+            override fun getDividerColor(position: Int): Int {
+                return 0
+            }
+        }, colors.size)
+        return cache
+    }
+
+    companion object {
+        private const val BLACK = 0xFF000000.toInt()
+        private const val WHITE = 0xFFFFFFFF.toInt()
+        private const val RED = 0xFFFF0000.toInt()
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+/**
+ * TabRangeDiffTest
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-18 01:02:36
+ * Major Function：<b>Checks the changed range and the position mapping of [TabRangeDiff]</b>
+ *
+ * The tabs are compared by their titles, a position must stay on the same title across a
+ * change and go to the tab that took its place when its title was removed.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+class TabRangeDiffTest {
+
+    @Test
+    fun sameTabsHaveNoChangedRange() {
+        val diff = diff("A B C", "A B C")
+        assertEquals(0, diff.oldCount)
+        assertEquals(0, diff.count)
+        for (i in 0 until 3) {
+            assertEquals(i, diff.mapPosition(i))
+        }
+    }
+
+    @Test
+    fun changedTitleIsReboundInPlace() {
+        val diff = diff("A B C D", "A X C D")
+        assertEquals(1, diff.start)
+        assertEquals(1, diff.oldCount)
+        assertEquals(1, diff.count)
+        assertEquals(3, diff.mapPosition(3))
+    }
+
+    @Test
+    fun insertedTabsMoveTheFollowingOnes() {
+        val diff = diff("A B C", "A X Y B C")
+        assertEquals(1, diff.start)
+        assertEquals(0, diff.oldCount)
+        assertEquals(2, diff.count)
+        assertSameTitles("A B C", "A X Y B C", diff)
+    }
+
+    @Test
+    fun removedTabsMoveTheFollowingOnesBack() {
+        val diff = diff("A B C D E", "A D E")
+        assertEquals(1, diff.start)
+        assertEquals(2, diff.oldCount)
+        assertEquals(0, diff.count)
+        assertEquals(0, diff.mapPosition(0))
+        assertEquals(1, diff.mapPosition(1))
+        assertEquals(1, diff.mapPosition(2))
+        assertEquals(1, diff.mapPosition(3))
+        assertEquals(2, diff.mapPosition(4))
+    }
+
+    @Test
+    fun removedLastTabsGoToTheNewLastTab() {
+        val diff = diff("A B C", "A")
+        assertEquals(0, diff.mapPosition(1))
+        assertEquals(0, diff.mapPosition(2))
+    }
+
+    @Test
+    fun repeatedTitlesAreMatchedFromBothEnds() {
+        // The suffix can not reach into the prefix, the changed range is never negative.
+        val diff = diff("A A", "A A A")
+        assertEquals(2, diff.start)
+        assertEquals(0, diff.oldCount)
+        assertEquals(1, diff.count)
+    }
+
+    @Test
+    fun shrunkRangeMapsToTheFollowingTab() {
+        val diff = diff("A B C D", "A X D")
+        assertEquals(1, diff.start)
+        assertEquals(2, diff.oldCount)
+        assertEquals(1, diff.count)
+        assertEquals(1, diff.mapPosition(1))
+        assertEquals(2, diff.mapPosition(2))
+        assertEquals(2, diff.mapPosition(3))
+    }
+
+    @Test
+    fun insertedRangeKeepsSelection() {
+        // Two tabs inserted at 1 of 3, as SlidingTabLayout.insertTabs remaps.
+        val diff = TabRangeDiff.inserted(1, 2, 5)
+        assertEquals(0, diff.mapPosition(0))
+        assertEquals(3, diff.mapPosition(1))
+        assertEquals(4, diff.mapPosition(2))
+    }
+
+    @Test
+    fun removedRangeGoesToTheFollowingTab() {
+        // Tabs 1 and 2 removed of 5, as SlidingTabLayout.removeTabs remaps.
+        val diff = TabRangeDiff.removed(1, 2, 3)
+        assertEquals(0, diff.mapPosition(0))
+        assertEquals(1, diff.mapPosition(1))
+        assertEquals(1, diff.mapPosition(2))
+        assertEquals(1, diff.mapPosition(3))
+        assertEquals(2, diff.mapPosition(4))
+        // Removing the last tabs selects the new last tab, removing all tabs selects 0.
+        assertEquals(2, TabRangeDiff.removed(3, 2, 3).mapPosition(4))
+        assertEquals(0, TabRangeDiff.removed(0, 3, 0).mapPosition(1))
+    }
+
+    @Test
+    fun movedTabCarriesItsPosition() {
+        val titles = "A B C D E".split(" ")
+        for (from in titles.indices) {
+            for (to in titles.indices) {
+                val moved = ArrayList(titles)
+                moved.add(to, moved.removeAt(from))
+                for (i in titles.indices) {
+                    assertEquals(titles[i], moved[TabRangeDiff.mapMovedPosition(i, from, to)])
+                }
+            }
+        }
+    }
+
+    private fun diff(oldTitles: String, titles: String): TabRangeDiff {
+        val old = oldTitles.split(" ")
+        val new = titles.split(" ")
+        return TabRangeDiff.compute(old.size, new.size) { oldPosition, position ->
+            old[oldPosition] == new[position]
+        }
+    }
+
+    /**
+     * Assert every old position whose title is still there maps to that title.
+     */
+    private fun assertSameTitles(oldTitles: String, titles: String, diff: TabRangeDiff) {
+        val old = oldTitles.split(" ")
+        val new = titles.split(" ")
+        for (i in old.indices) {
+            assertEquals(old[i], new[diff.mapPosition(i)])
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2018 Kevin zhou
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kevin.slidingtab
+
+import com.kevin.slidingtab.SlidingTabLayout.TabPalette
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * TabTransitionTest
+ *
+ * @author zwenkai@foxmail.com, Created on 2026-10-18 00:31:09
+ * Major Function：<b>Checks the styles the built-in [TabTransition]s resolve</b>
+ *
+ * The tabs are white, red and green when selected and black otherwise. The pager is dragged
+ * halfway from the first to the second page unless a test says otherwise.
+ *
+ * Note: If you modify this class please fill in the following content as a record.
+ * @author mender，Modified Date Modify Content:
+ */
+class TabTransitionTest {
+    private var fillSupported = true
+    private val state = TabTransition.State { fillSupported }
+    private val style = TabStyle()
+
+    @Test
+    fun selectionStyleWithoutSwipe() {
+        setState(0.5f, false)
+        for (transition in arrayOf(TabTransition.BLEND, TabTransition.DISCRETE, TabTransition.FILL)) {
+            resolve(transition, 0)
+            assertTrue(style.selected)
+            assertTrue(style.bold)
+            assertEquals(SELECTED_SIZE, style.textSize, DELTA)
+            assertEquals(WHITE, style.textColor)
+            assertEquals(0f, style.fillFraction, DELTA)
+            resolve(transition, 1)
+            assertFalse(style.selected)
+            assertFalse(style.bold)
+            assertEquals(NORMAL_SIZE, style.textSize, DELTA)
+            assertEquals(BLACK, style.textColor)
+        }
+    }
+
+    @Test
+    fun blendFadesSwipedTabs() {
+        setState(0.5f, true)
+        resolve(TabTransition.BLEND, 0)
+        assertEquals(0xFF7F7F7F.toInt(), style.textColor)
+        assertTrue(style.selected)
+        resolve(TabTransition.BLEND, 1)
+        assertEquals(0xFF7F0000.toInt(), style.textColor)
+        assertFalse(style.selected)
+        resolve(TabTransition.BLEND, 2)
+        assertEquals(BLACK, style.textColor)
+        // The entered tab is not touched before the pager moves.
+        setState(0f, true)
+        resolve(TabTransition.BLEND, 1)
+        assertEquals(BLACK, style.textColor)
+    }
+
+    @Test
+    fun blendWritesEveryField() {
+        setState(0.5f, true)
+        style.fillColor = RED
+        style.fillFraction = 1f
+        resolve(TabTransition.BLEND, 1)
+        assertEquals(0, style.fillColor)
+        assertEquals(0f, style.fillFraction, DELTA)
+    }
+
+    @Test
+    fun discreteIgnoresSwipe() {
+        setState(0.5f, true)
+        resolve(TabTransition.DISCRETE, 0)
+        assertEquals(WHITE, style.textColor)
+        resolve(TabTransition.DISCRETE, 1)
+        assertEquals(BLACK, style.textColor)
+        assertFalse(TabTransition.DISCRETE.dependsOnOffset())
+        assertTrue(TabTransition.BLEND.dependsOnOffset())
+        assertTrue(TabTransition.FILL.dependsOnOffset())
+    }
+
+    @Test
+    fun fillFillsSwipedTabsFromTheirStart() {
+        setState(0.25f, true)
+        resolve(TabTransition.FILL, 0)
+        assertEquals(WHITE, style.textColor)
+        assertEquals(BLACK, style.fillColor)
+        assertEquals(0.25f, style.fillFraction, DELTA)
+        resolve(TabTransition.FILL, 1)
+        assertEquals(BLACK, style.textColor)
+        assertEquals(RED, style.fillColor)
+        assertEquals(0.25f, style.fillFraction, DELTA)
+        resolve(TabTransition.FILL, 2)
+        assertEquals(BLACK, style.textColor)
+        assertEquals(0f, style.fillFraction, DELTA)
+    }
+
+    @Test
+    fun fillFallsBackToBlend() {
+        fillSupported = false
+        setState(0.5f, true)
+        resolve(TabTransition.FILL, 0)
+        assertEquals(0xFF7F7F7F.toInt(), style.textColor)
+        assertEquals(0f, style.fillFraction, DELTA)
+        resolve(TabTransition.FILL, 1)
+        assertEquals(0xFF7F0000.toInt(), style.textColor)
+        assertEquals(0f, style.fillFraction, DELTA)
+    }
+
+    @Test
+    fun builtInsResolveOnlyTheSwipedTabs() {
+        assertFalse(TabTransition.BLEND.resolvesAllTabs())
+        assertFalse(TabTransition.DISCRETE.resolvesAllTabs())
+        assertFalse(TabTransition.FILL.resolvesAllTabs())
+    }
+
+    private fun setState(positionOffset: Float, scrolling: Boolean) {
+        val palette = TabPaletteCache()
+        palette.setNormalTextColor(BLACK)
+        palette.resolve(object : TabPalette {
+            override fun getTextColor(position: Int): Int {
+                return COLORS[position]
+            }
+
+            override fun getDividerColor(position: Int): Int {
+                return 0
+            }
+        }, COLORS.size)
+        state.palette = palette
+        state.set(0, 0, positionOffset, scrolling, BLACK, NORMAL_SIZE, SELECTED_SIZE, true)
+    }
+
+    private fun resolve(transition: TabTransition, position: Int) {
+        transition.resolveStyle(position, state, style)
+    }
+
+    companion object {
+        private const val DELTA = 0.001f
+        private const val NORMAL_SIZE = 14f
+        private const val SELECTED_SIZE = 18f
+        private const val BLACK = 0xFF000000.toInt()
+        private const val WHITE = 0xFFFFFFFF.toInt()
+        private const val RED = 0xFFFF0000.toInt()
+        private const val GREEN = 0xFF00FF00.toInt()
+        private val COLORS = intArrayOf(WHITE, RED, GREEN)
+    }
+}